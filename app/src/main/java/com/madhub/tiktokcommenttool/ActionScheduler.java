@@ -0,0 +1,141 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ActionScheduler paces outgoing actions, such as posted comments, to a
+ * configured number of actions per time window.
+ * <p>
+ * Pacing uses a token bucket: tokens refill continuously at the configured
+ * rate and a small bucket allows only short bursts, so calls are spread over
+ * the window instead of being fired back to back and failing. The bucket
+ * starts empty and refills at the limit less its size, so no window holds
+ * more than the limit, even when a full bucket is spent at its start. When several
+ * jobs wait for a token, the job with the highest priority goes first and
+ * jobs of the same priority take turns, one action each.
+ * </p>
+ * <p>
+ * One shared instance paces every pipeline of the process, see {@link #getShared()}.
+ * </p>
+ */
+public class ActionScheduler {
+
+    // Default limit of the shared scheduler
+    private static final int DEFAULT_ACTIONS_PER_WINDOW = 30;
+    private static final long DEFAULT_WINDOW_MILLIS = 60000L;
+
+    // The bucket holds at most this fraction of the window's actions
+    private static final int BURST_DIVISOR = 10;
+
+    // Waiters not at the head recheck cancellation this often
+    private static final long MAX_IDLE_WAIT_MILLIS = 100L;
+
+    private static final ActionScheduler SHARED =
+            new ActionScheduler(DEFAULT_ACTIONS_PER_WINDOW, DEFAULT_WINDOW_MILLIS);
+
+    private final LatencyHistogram pacingWait = MetricsRegistry.getShared().latency(MetricsRegistry.PACING_WAIT);
+
+    // Waiting jobs and token state, guarded by "this"
+    private final FairQueue<Object> waiters = new FairQueue<>();
+    private double tokens;
+    private double capacity;
+    private double tokensPerNano;
+    private long lastRefillNanos;
+
+    /**
+     * @param actionsPerWindow Maximum number of actions per window.
+     * @param windowMillis Length of the window in milliseconds.
+     */
+    public ActionScheduler(int actionsPerWindow, long windowMillis) {
+        lastRefillNanos = nanoTime();
+        setLimit(actionsPerWindow, windowMillis);
+    }
+
+    /**
+     * @return The scheduler shared by every pipeline of the process.
+     */
+    public static ActionScheduler getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Changes the limit, taking effect for the next action.
+     *
+     * @param actionsPerWindow Maximum number of actions per window.
+     * @param windowMillis Length of the window in milliseconds.
+     */
+    public synchronized void setLimit(int actionsPerWindow, long windowMillis) {
+        if (actionsPerWindow <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for the action limit.");
+        }
+        refill(nanoTime());
+        capacity = Math.max(1, actionsPerWindow / BURST_DIVISOR);
+        // A window gets at most a full bucket plus what refills during it. A limit of 1 still
+        // refills one token per window, which is back only once the window of the last action ended
+        double refillPerWindow = Math.max(1, actionsPerWindow - capacity);
+        tokensPerNano = refillPerWindow / TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        tokens = Math.min(tokens, capacity);
+        notifyAll();
+    }
+
+    /**
+     * Blocks until the job may perform its next action.
+     *
+     * @param job The job performing the action, its priority decides the order.
+     * @return true if the action may go ahead, false if the job was cancelled while waiting.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public boolean acquire(CommentPipeline.Job job) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        // Each call queues its own token so a job with several waiting threads takes several turns
+        Object waiter = new Object();
+        int priority = job.getPriority();
+        synchronized (this) {
+            waiters.add(job, priority, waiter);
+            try {
+                while (true) {
+                    if (job.isCancelled()) {
+                        waiters.remove(job, priority, waiter);
+                        notifyAll();
+                        return false;
+                    }
+                    long waitMillis = MAX_IDLE_WAIT_MILLIS;
+                    if (waiters.peek() == waiter) {
+                        refill(nanoTime());
+                        if (tokens >= 1) {
+                            tokens -= 1;
+                            waiters.poll();
+                            // Let the next waiter check the bucket
+                            notifyAll();
+                            break;
+                        }
+                        long missingNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+                        waitMillis = Math.min(waitMillis, Math.max(1, TimeUnit.NANOSECONDS.toMillis(missingNanos)));
+                    }
+                    pause(waitMillis);
+                }
+            } catch (InterruptedException e) {
+                waiters.remove(job, priority, waiter);
+                notifyAll();
+                throw e;
+            }
+        }
+        pacingWait.recordSince(startNanos);
+        return true;
+    }
+
+    // The scheduler's clock, tests substitute their own
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    // Waits for a token or a notification while holding the lock, tests advance their clock instead
+    void pause(long millis) throws InterruptedException {
+        wait(millis);
+    }
+
+    private void refill(long nowNanos) {
+        tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = nowNanos;
+    }
+}
@@ -0,0 +1,155 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CircuitBreaker pauses a stage while most of its recent calls fail, instead
+ * of burning through the work with calls that cannot succeed.
+ * <p>
+ * The breaker is closed while the failure rate over the last calls stays below
+ * the threshold. Once it is reached the breaker opens and callers of
+ * {@link #awaitPermission(CommentPipeline.Job)} wait. After the open period a
+ * single probe call is let through: its success closes the breaker, its
+ * failure opens it again.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    public static final int CLOSED = 0;
+    public static final int OPEN = 1;
+    public static final int HALF_OPEN = 2;
+
+    // Waiting callers recheck cancellation this often
+    private static final long MAX_IDLE_WAIT_MILLIS = 100L;
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final StripedCounter opened = MetricsRegistry.getShared().counter(MetricsRegistry.CIRCUIT_OPENS);
+
+    // Outcomes of the last calls, true for a failure, guarded by "this"
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private int state = CLOSED;
+    private long openUntilNanos;
+    private boolean probeInFlight;
+
+    /**
+     * @param windowSize Number of recent calls the failure rate is computed over.
+     * @param failureRateThreshold Failure rate between 0 and 1 that opens the breaker.
+     * @param openMillis Time the breaker stays open before a probe call.
+     */
+    public CircuitBreaker(int windowSize, double failureRateThreshold, long openMillis) {
+        if (windowSize <= 1 || failureRateThreshold <= 0 || failureRateThreshold > 1 || openMillis <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for the circuit breaker.");
+        }
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = windowSize / 2;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * Blocks while the breaker is open.
+     *
+     * @param job The job about to make the call.
+     * @return true if the call may go ahead, false if the job was cancelled while waiting.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public synchronized boolean awaitPermission(CommentPipeline.Job job) throws InterruptedException {
+        while (true) {
+            if (job.isCancelled()) {
+                return false;
+            }
+            if (state == CLOSED) {
+                return true;
+            }
+            long waitMillis = MAX_IDLE_WAIT_MILLIS;
+            if (state == OPEN) {
+                long remainingNanos = openUntilNanos - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    state = HALF_OPEN;
+                    probeInFlight = false;
+                    continue;
+                }
+                waitMillis = Math.min(waitMillis, Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+            } else if (!probeInFlight) {
+                probeInFlight = true;
+                return true;
+            }
+            wait(waitMillis);
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        if (state == HALF_OPEN) {
+            close();
+        } else if (state == CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void recordFailure() {
+        if (state == HALF_OPEN) {
+            open();
+        } else if (state == CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Ends a call whose failure says nothing about the backend's health, such as
+     * a rejected request. A probe call is given to the next caller instead.
+     */
+    public synchronized void recordIgnored() {
+        if (state == HALF_OPEN && probeInFlight) {
+            probeInFlight = false;
+            notifyAll();
+        }
+    }
+
+    public synchronized int getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = OPEN;
+        openUntilNanos = System.nanoTime() + openNanos;
+        resetWindow();
+        opened.increment();
+    }
+
+    private void close() {
+        state = CLOSED;
+        resetWindow();
+        notifyAll();
+    }
+
+    private void resetWindow() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        probeInFlight = false;
+    }
+}
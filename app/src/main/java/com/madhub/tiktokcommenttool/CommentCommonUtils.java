@@ -1,6 +1,10 @@
 ```java
 package com.madhub.tiktokcommenttool;
 
+import android.content.Context;
+
+import java.util.List;
+
 /**
  * CommentCommonUtils is a final utility class that provides static methods 
  * for managing TikTok comments through automation features offered by MadHub.
@@ -14,6 +18,9 @@ package com.madhub.tiktokcommenttool;
  */
 public final class CommentCommonUtils {
 
+    // Constants for log identification
+    private static final String TAG = "CommentCommonUtils";
+
     // Private constructor to prevent instantiation of the utility class
     private CommentCommonUtils() {
         throw new UnsupportedOperationException("Utility class cannot be instantiated");
@@ -21,38 +28,45 @@ public final class CommentCommonUtils {
 
     /**
      * This method handles the posting of comments on specified TikTok videos
-     * based on provided search criteria.
+     * based on provided search criteria. Blocks until the job is done, must not
+     * be called on the main thread.
      *
+     * @param context Any context, used to reach the {@link CommentWorkerService} running the job.
      * @param videoKeyword The keyword to filter TikTok videos for the comment action.
      * @param commentText The text of the comment to be posted.
      * @param commentCount The number of times the comment should be posted.
      * @param filterDate The filter for searching videos based on publish date.
-     * @return boolean indicating the success of the comment posting operation.
+     * @return true if every found video was handled, false if a video failed, the job was interrupted
+     *         or the service could not be reached.
      *
      * Implementation Detail: This method leverages MadHub's capability to interact
      * with TikTok's API for video searching and comment posting, allowing users to
      * automate their marketing strategies. The parameters allow for flexible
      * configuration based on user needs, such as frequency and target videos.
      */
-    public static boolean postCommentsToVideo(String videoKeyword, String commentText, int commentCount, String filterDate) {
-        // Validate input parameters
-        if (videoKeyword == null || videoKeyword.isEmpty() || commentText == null || commentText.isEmpty() || commentCount <= 0) {
-            throw new IllegalArgumentException("Invalid parameters provided for posting comments.");
-        }
+    public static boolean postCommentsToVideo(Context context, String videoKeyword, final String commentText,
+                                              int commentCount, String filterDate) {
+        // The job validates the parameters. It runs on the service's pipeline like every other
+        // job, so its comments are paced by the shared ActionScheduler, failures are retried
+        // and videos processed before are skipped.
+        CommentPipeline.Job job = new CommentPipeline.Job(videoKeyword, filterDate, commentText, commentCount,
+                new CommentPipeline.Listener() {
+                    @Override
+                    public void onCommentPosted(CommentPipeline.Job job, String videoId, int commentIndex) {
+                        CommentLog.d(TAG, "Posting comment: '{}' to video: '{}'", commentText, videoId);
+                    }
+                });
+        CommentWorkerService.submit(context, job);
 
-        // Placeholder for video search functionality
-        // This would connect to MadHub's API to find videos matching the keyword
-        // and filter by the publish date if specified.
-        // TikTok API logic to search videos based on the keyword and filter date would go here.
-        
-        // Simulate posting the comment for each matching video
-        for (int i = 0; i < commentCount; i++) {
-            // Logic to post the comment using MadHub's functionality would be included here
-            System.out.println("Posting comment: '" + commentText + "' to video with keyword: '" + videoKeyword + "'");
+        try {
+            job.await();
+        } catch (InterruptedException e) {
+            job.cancel();
+            Thread.currentThread().interrupt();
+            return false;
         }
-
         // Return true to indicate the comments were successfully posted.
-        return true;
+        return !job.isCancelled() && job.getFailedItems() == 0;
     }
 
     /**
@@ -69,22 +83,13 @@ public final class CommentCommonUtils {
      * that only a manageable number of user interactions are handled.
      */
     public static List<String> collectUsersFromCommentSections(String videoKeyword, int userCountLimit) {
-        // Validate input parameters
-        if (videoKeyword == null || videoKeyword.isEmpty() || userCountLimit <= 0) {
-            throw new IllegalArgumentException("Invalid parameters provided for collecting user comments.");
-        }
-
-        List<String> userList = new ArrayList<>();
-
-        // Placeholder for the logic to collect users from comment sections
-        // This would connect to MadHub's API to find videos based on the keyword 
-        // and collect data from their respective comment sections.
-        
-        // Simulate user collection
-        for (int i = 0; i < userCountLimit; i++) {
-            String simulatedUser = "User" + (i+1) + " from video with keyword: " + videoKeyword;
-            userList.add(simulatedUser);
-            System.out.println("Collected user: " + simulatedUser);
+        // The shared engine validates the parameters, finds videos based on the keyword
+        // and collects authors from their comment sections
+        List<String> userList = CommentPipelineFactory.getEngine().collectUsers(videoKeyword, userCountLimit);
+        if (CommentLog.isLoggable(CommentLog.DEBUG)) {
+            for (String user : userList) {
+                CommentLog.d(TAG, "Collected user: {}", user);
+            }
         }
 
         return userList;
@@ -96,7 +101,7 @@ public final class CommentCommonUtils {
 1. **Class Overview**: `CommentCommonUtils` is a final utility class that encapsulates all methods related to TikTok comment automation. The class is designed to follow the principles of clean architecture by avoiding instantiation, ensuring that all methods can be accessed statically.
 
 2. **Method Implementations**:
-   - **`postCommentsToVideo`**: This method posts comments on videos that match the specified keyword. It includes validation checks to ensure the inputs are valid, and leverages MadHub's features to simulate the posting process, demonstrating how users can automate comment interactions.
-   - **`collectUsersFromCommentSections`**: This method collects usernames of users from the comment sections of TikTok videos based on a given keyword. It includes similar validation and simulates the collection of user interactions, which is crucial for building a marketing database.
+   - **`postCommentsToVideo`**: This method posts comments on videos that match the specified keyword. It includes validation checks to ensure the inputs are valid and hands the job to `CommentWorkerService`, whose pipeline paces the comments with the shared `ActionScheduler`, retries failures, skips already processed videos and reuses recent search results from the `SearchResultCache`, demonstrating how users can automate comment interactions.
+   - **`collectUsersFromCommentSections`**: This method collects usernames of users from the comment sections of TikTok videos based on a given keyword. It delegates to the same engine, which validates the input and collects comment authors through the configured transport, which is crucial for building a marketing database.
 
 3. **Best Practices**: The design emphasizes validation and error handling to ensure robust operations. Each method is documented to clarify its purpose, parameters, and implementation strategy, aligning with MadHub's automation capabilities to enhance user experience and compliance with TikTok's guidelines. The use of lists and strings showcases an efficient way to manage user data for future marketing approaches.
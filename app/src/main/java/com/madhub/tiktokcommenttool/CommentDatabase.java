@@ -0,0 +1,56 @@
+package com.madhub.tiktokcommenttool;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+/**
+ * CommentDatabase is the Room database holding the persistent task queue.
+ * A single instance is shared by the whole process.
+ * <p>
+ * No release shipped the database before this schema, so it starts at
+ * version 1. Later schema changes bump the version and add a migration.
+ * </p>
+ */
+@Database(entities = {CommentTaskEntity.class, CommentWorkItemEntity.class, SearchCacheEntity.class,
+        ProcessedVideoEntity.class, DeadLetterEntity.class},
+        version = 1,
+        exportSchema = false)
+public abstract class CommentDatabase extends RoomDatabase implements CommentTaskManager.Transactions {
+
+    private static final String DATABASE_NAME = "comment_tasks.db";
+
+    private static volatile CommentDatabase instance;
+
+    public abstract CommentTaskDao taskDao();
+
+    public abstract SearchCacheDao searchCacheDao();
+
+    public abstract ProcessedVideoDao processedVideoDao();
+
+    public abstract DeadLetterDao deadLetterDao();
+
+    /**
+     * Returns the shared database instance, creating it on first use.
+     *
+     * @param context Any context, the application context is retained.
+     * @return The process-wide database.
+     */
+    public static CommentDatabase getInstance(Context context) {
+        CommentDatabase result = instance;
+        if (result == null) {
+            synchronized (CommentDatabase.class) {
+                result = instance;
+                if (result == null) {
+                    result = Room.databaseBuilder(context.getApplicationContext(),
+                            CommentDatabase.class, DATABASE_NAME)
+                            .build();
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+}
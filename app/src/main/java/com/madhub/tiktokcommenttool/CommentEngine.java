@@ -0,0 +1,233 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CommentEngine performs the timed transport calls behind every comment job:
+ * the stages of {@link CommentPipeline}, which runs the jobs of
+ * {@link CommentCommonUtils}, {@link CommentTaskManager} and
+ * {@link CommentWorkerService}, search and post through it, and
+ * {@link CommentCommonUtils} collects comment authors with it.
+ * <p>
+ * All I/O goes through a {@link VideoSearchTransport} and a {@link CommentTransport},
+ * and every search page goes through the {@link SearchResultCache}. The engine
+ * itself does not depend on Android, so it can be exercised on a plain JVM with
+ * a {@link FakeCommentTransport}.
+ * </p>
+ * <p>
+ * Transport calls are timed into the {@link MetricsRegistry} histograms
+ * {@link MetricsRegistry#SEARCH}, {@link MetricsRegistry#POST} and
+ * {@link MetricsRegistry#COLLECT}. Cache hits are not counted as searches.
+ * </p>
+ */
+public class CommentEngine {
+
+    /**
+     * Receives progress while a job runs. Called on the thread running the job.
+     */
+    public interface JobListener {
+        /**
+         * @param videoId The video the comment was posted on.
+         * @param commentIndex Zero based index of the comment on that video.
+         */
+        void onCommentPosted(String videoId, int commentIndex);
+    }
+
+    private static volatile CommentEngine defaultEngine;
+
+    private final VideoSearchTransport searchTransport;
+    private final CommentTransport commentTransport;
+
+    // Hot path metrics, resolved once
+    private final LatencyHistogram searchLatency;
+    private final LatencyHistogram postLatency;
+    private final LatencyHistogram collectLatency;
+    private final StripedCounter searchFailures;
+    private final StripedCounter postFailures;
+    private final StripedCounter collectFailures;
+
+    /**
+     * @param searchTransport Transport used for video searches.
+     * @param commentTransport Transport used for comments.
+     * @param cache Cache placed in front of the search transport, or null for none.
+     */
+    public CommentEngine(VideoSearchTransport searchTransport, CommentTransport commentTransport,
+                         SearchResultCache cache) {
+        if (searchTransport == null || commentTransport == null) {
+            throw new IllegalArgumentException("Transports must not be null.");
+        }
+        MetricsRegistry metrics = MetricsRegistry.getShared();
+        this.searchLatency = metrics.latency(MetricsRegistry.SEARCH);
+        this.postLatency = metrics.latency(MetricsRegistry.POST);
+        this.collectLatency = metrics.latency(MetricsRegistry.COLLECT);
+        this.searchFailures = metrics.counter(MetricsRegistry.SEARCH_FAILURES);
+        this.postFailures = metrics.counter(MetricsRegistry.POST_FAILURES);
+        this.collectFailures = metrics.counter(MetricsRegistry.COLLECT_FAILURES);
+
+        // Timed below the cache, so only real round-trips are measured
+        VideoSearchTransport timedSearch = timed(searchTransport);
+        this.searchTransport = cache != null ? cache.wrap(timedSearch) : timedSearch;
+        this.commentTransport = commentTransport;
+    }
+
+    /**
+     * @return The engine shared by the app, backed by the shared search cache.
+     */
+    public static CommentEngine getDefault() {
+        CommentEngine engine = defaultEngine;
+        if (engine == null) {
+            synchronized (CommentEngine.class) {
+                engine = defaultEngine;
+                if (engine == null) {
+                    // Stand-in until CommentPipelineFactory switches to the configured backend
+                    FakeCommentTransport transport = new FakeCommentTransport();
+                    engine = new CommentEngine(transport, transport, SearchResultCache.getShared());
+                    defaultEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Replaces the engine returned by {@link #getDefault()}, e.g. to switch transports.
+     *
+     * @param engine The new default engine.
+     */
+    public static void setDefault(CommentEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Engine must not be null.");
+        }
+        defaultEngine = engine;
+    }
+
+    /**
+     * Starts a lazy, paginated video search.
+     *
+     * @param keyword The keyword to search videos.
+     * @param filterDate The publish date filter, or null for no filter.
+     * @param startCursor A cursor saved by an earlier search, or null to start over.
+     * @return A cursor over the result pages.
+     */
+    public VideoSearchCursor search(String keyword, String filterDate, String startCursor) {
+        return new VideoSearchCursor(searchTransport, keyword, filterDate, startCursor);
+    }
+
+    /**
+     * Posts a single comment.
+     *
+     * @param videoId The video to comment on.
+     * @param commentText The text of the comment.
+     */
+    public void postComment(String videoId, String commentText) {
+        long start = System.nanoTime();
+        try {
+            commentTransport.postComment(videoId, commentText);
+        } catch (RuntimeException e) {
+            postFailures.increment();
+            throw e;
+        } finally {
+            postLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Searches videos and posts the comment on every result, streaming page by page.
+     * Runs on the calling thread without pacing, retries or deduplication; the app
+     * runs its jobs through {@link CommentPipeline}, this is the sequential baseline
+     * of the benchmarks.
+     *
+     * @param keyword The keyword to search videos.
+     * @param filterDate The publish date filter, or null for no filter.
+     * @param commentText The text of the comment.
+     * @param commentCount The number of comments to post on every video.
+     * @param listener Receives progress, may be null.
+     * @return The number of comments posted.
+     */
+    public int runJob(String keyword, String filterDate, String commentText, int commentCount,
+                      JobListener listener) {
+        validateJob(keyword, commentText, commentCount);
+
+        int posted = 0;
+        VideoSearchCursor cursor = search(keyword, filterDate, null);
+        while (cursor.hasNext()) {
+            for (String videoId : cursor.next().getVideoIds()) {
+                for (int i = 0; i < commentCount; i++) {
+                    postComment(videoId, commentText);
+                    posted++;
+                    if (listener != null) {
+                        listener.onCommentPosted(videoId, i);
+                    }
+                }
+            }
+        }
+        return posted;
+    }
+
+    /**
+     * Collects comment authors from the videos found for a keyword.
+     *
+     * @param keyword The keyword to search videos.
+     * @param userCountLimit The maximum number of users to collect.
+     * @return Up to {@code userCountLimit} usernames.
+     */
+    public List<String> collectUsers(String keyword, int userCountLimit) {
+        if (keyword == null || keyword.isEmpty() || userCountLimit <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for collecting user comments.");
+        }
+
+        List<String> users = new ArrayList<>();
+        VideoSearchCursor cursor = search(keyword, null, null);
+        while (cursor.hasNext() && users.size() < userCountLimit) {
+            for (String videoId : cursor.next().getVideoIds()) {
+                int remaining = userCountLimit - users.size();
+                if (remaining <= 0) {
+                    break;
+                }
+                users.addAll(fetchCommentAuthors(videoId, remaining));
+            }
+        }
+        return users;
+    }
+
+    private List<String> fetchCommentAuthors(String videoId, int limit) {
+        long start = System.nanoTime();
+        try {
+            return commentTransport.fetchCommentAuthors(videoId, limit);
+        } catch (RuntimeException e) {
+            collectFailures.increment();
+            throw e;
+        } finally {
+            collectLatency.recordSince(start);
+        }
+    }
+
+    private VideoSearchTransport timed(final VideoSearchTransport delegate) {
+        return new VideoSearchTransport() {
+            @Override
+            public VideoSearchPage fetchPage(String keyword, String filterDate, String cursor) {
+                long start = System.nanoTime();
+                try {
+                    return delegate.fetchPage(keyword, filterDate, cursor);
+                } catch (RuntimeException e) {
+                    searchFailures.increment();
+                    throw e;
+                } finally {
+                    searchLatency.recordSince(start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Validates the parameters shared by every comment job.
+     *
+     * @throws IllegalArgumentException If a parameter is missing or out of range.
+     */
+    public static void validateJob(String keyword, String commentText, int commentCount) {
+        if (keyword == null || keyword.isEmpty() || commentText == null || commentText.isEmpty() || commentCount <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for posting comments.");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.madhub.tiktokcommenttool;
+
+import java.io.File;
+
+/**
+ * CommentLog is the structured, level-gated logger used on the per-item hot path.
+ * <p>
+ * Messages are templates with {@code {}} placeholders and separate arguments.
+ * A disabled level returns before touching anything, and an enabled record only
+ * stores references and primitives into a preallocated {@link LogRingBuffer} slot,
+ * so no String is built on the calling thread. A background {@link LogFileFlusher}
+ * formats the records and appends them to a rotating log file.
+ * </p>
+ * <p>
+ * Overloads take a fixed number of arguments instead of varargs to avoid
+ * allocating an array per call. Pass primitive counters through the {@code long}
+ * overloads to avoid boxing.
+ * </p>
+ */
+public final class CommentLog {
+
+    // Levels, identical to android.util.Log
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private static final int RING_CAPACITY = 4096;
+    private static final String LOG_FILE_NAME = "comment.log";
+
+    private static final LogRingBuffer RING = new LogRingBuffer(RING_CAPACITY);
+
+    private static volatile int minLevel = INFO;
+    private static LogFileFlusher flusher;
+
+    // Private constructor to prevent instantiation of the utility class
+    private CommentLog() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Starts writing records to a rotating file in the given directory.
+     * Calling it again has no effect while the flusher is running.
+     *
+     * @param logDirectory Directory for the log file and its rotated copies.
+     */
+    public static synchronized void start(File logDirectory) {
+        if (flusher != null && flusher.isAlive()) {
+            return;
+        }
+        flusher = new LogFileFlusher(RING, new File(logDirectory, LOG_FILE_NAME));
+        flusher.start();
+    }
+
+    /**
+     * Writes everything recorded so far and stops the background flusher.
+     */
+    public static synchronized void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher = null;
+        }
+    }
+
+    /**
+     * Sets the lowest level that is recorded, everything below is dropped at no cost.
+     *
+     * @param level One of {@link #VERBOSE}, {@link #DEBUG}, {@link #INFO}, {@link #WARN} or {@link #ERROR}.
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    /**
+     * @return The number of records dropped because the ring buffer was full.
+     */
+    public static long getDroppedCount() {
+        return RING.getDroppedCount();
+    }
+
+    public static void d(String tag, String message) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, message, 0, null, null, 0L);
+        }
+    }
+
+    public static void d(String tag, String template, Object arg) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, template, 1, arg, null, 0L);
+        }
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, template, 2, arg1, arg2, 0L);
+        }
+    }
+
+    public static void d(String tag, String template, Object arg, long number) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, template, 1 | LogRingBuffer.HAS_NUMBER, arg, null, number);
+        }
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2, long number) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, template, 2 | LogRingBuffer.HAS_NUMBER, arg1, arg2, number);
+        }
+    }
+
+    public static void d(String tag, String template, long number) {
+        if (DEBUG >= minLevel) {
+            RING.add(DEBUG, tag, template, LogRingBuffer.HAS_NUMBER, null, null, number);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (INFO >= minLevel) {
+            RING.add(INFO, tag, message, 0, null, null, 0L);
+        }
+    }
+
+    public static void i(String tag, String template, Object arg, long number) {
+        if (INFO >= minLevel) {
+            RING.add(INFO, tag, template, 1 | LogRingBuffer.HAS_NUMBER, arg, null, number);
+        }
+    }
+
+    public static void w(String tag, String template, Object arg) {
+        if (WARN >= minLevel) {
+            RING.add(WARN, tag, template, 1, arg, null, 0L);
+        }
+    }
+
+    public static void w(String tag, String template, Object arg1, Object arg2) {
+        if (WARN >= minLevel) {
+            RING.add(WARN, tag, template, 2, arg1, arg2, 0L);
+        }
+    }
+
+    public static void e(String tag, String template, Object arg1, Object arg2) {
+        if (ERROR >= minLevel) {
+            RING.add(ERROR, tag, template, 2, arg1, arg2, 0L);
+        }
+    }
+}
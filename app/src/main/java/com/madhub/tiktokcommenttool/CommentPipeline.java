@@ -0,0 +1,746 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CommentPipeline runs comment jobs as three concurrent stages connected by
+ * bounded queues: search, filter and post.
+ * <p>
+ * Each stage has its own number of workers. A search worker streams result
+ * pages and hands every video to the filter stage; filter workers drop videos
+ * that need no work; post workers post the comments. Because the queues are
+ * bounded, a slow post stage holds back the search instead of buffering
+ * results, while searches, filtering and posting of different videos and jobs
+ * overlap.
+ * </p>
+ * <p>
+ * With a {@link ProcessedVideoIndex} set, the filter stage also skips videos
+ * completed by any earlier job or run, and the post stage records every video
+ * it completes.
+ * </p>
+ * <p>
+ * Videos wait for the post stage ordered by job priority, and jobs of the same
+ * priority take turns, so one large job cannot hold back the others. With an
+ * {@link ActionScheduler} set, every comment is paced to its configured limit.
+ * </p>
+ * <p>
+ * Failures are handled per video. A failed call is retried according to the
+ * {@link RetryPolicy}, a {@link CircuitBreaker} pauses the post stage while
+ * most calls fail, and a video that still fails is handed to the
+ * {@link DeadLetterStore} while the job continues with the next one.
+ * </p>
+ * <p>
+ * The owner scopes the pipeline: {@link #shutdown()} cancels every running
+ * job and stops all workers, e.g. from {@code Service.onDestroy()}.
+ * </p>
+ */
+public class CommentPipeline {
+
+    private static final String TAG = "CommentPipeline";
+
+    /**
+     * Worker counts and queue size of the pipeline.
+     */
+    public static final class Config {
+        public static final Config DEFAULT = new Config(2, 1, 4, 64);
+
+        final int searchWorkers;
+        final int filterWorkers;
+        final int postWorkers;
+        final int queueCapacity;
+
+        /**
+         * @param searchWorkers Jobs searched at the same time.
+         * @param filterWorkers Workers checking videos before posting.
+         * @param postWorkers Videos posted on at the same time.
+         * @param queueCapacity Capacity of each queue between two stages.
+         */
+        public Config(int searchWorkers, int filterWorkers, int postWorkers, int queueCapacity) {
+            if (searchWorkers <= 0 || filterWorkers <= 0 || postWorkers <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("Invalid parameters provided for the pipeline.");
+            }
+            this.searchWorkers = searchWorkers;
+            this.filterWorkers = filterWorkers;
+            this.postWorkers = postWorkers;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * Receives progress of a job. Methods are called on pipeline worker threads,
+     * possibly concurrently for different videos.
+     */
+    public abstract static class Listener {
+        /**
+         * Called on the search worker before the videos of a page enter the pipeline.
+         *
+         * @param job The job the page belongs to.
+         * @param page The fetched page.
+         * @param nextCursor Cursor of the following page, null if this was the last page.
+         */
+        public void onPageFetched(Job job, VideoSearchPage page, String nextCursor) {
+        }
+
+        public void onCommentPosted(Job job, String videoId, int commentIndex) {
+        }
+
+        public void onItemCompleted(Job job, String videoId) {
+        }
+
+        /**
+         * @param videoId The video that failed, or null if the search itself failed.
+         */
+        public void onItemFailed(Job job, String videoId, RuntimeException error) {
+        }
+
+        public void onJobFinished(Job job) {
+        }
+    }
+
+    /**
+     * Decides in the filter stage whether a video still needs work.
+     */
+    public interface ItemFilter {
+        /**
+         * @return true to post on the video, false to skip it.
+         */
+        boolean accept(Job job, String videoId);
+    }
+
+    /**
+     * A single comment job: one keyword, one comment text.
+     */
+    public static final class Job {
+        final String keyword;
+        final String filterDate;
+        final String commentText;
+        final int commentCount;
+        final Listener listener;
+
+        // Resume state, set before the job is submitted
+        String startCursor;
+        boolean searchCompleted;
+        final List<WorkItem> seededItems = new ArrayList<>();
+
+        // Videos already handed to the pipeline, possibly shared with other jobs
+        private Set<String> seenVideoIds = newVideoIdSet();
+        private boolean sharedVideoIds;
+
+        // Search plus every video that has not finished yet
+        private final AtomicInteger outstanding = new AtomicInteger(1);
+        private final AtomicInteger videosFound = new AtomicInteger();
+        private final AtomicInteger commentsPosted = new AtomicInteger();
+        private final AtomicInteger failedItems = new AtomicInteger();
+        private final AtomicInteger rejectedItems = new AtomicInteger();
+        private final AtomicInteger skippedItems = new AtomicInteger();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled;
+        private int priority;
+
+        /**
+         * @param keyword The keyword to search videos.
+         * @param filterDate The publish date filter, or null for no filter.
+         * @param commentText The text of the comment.
+         * @param commentCount The number of comments to post on every video.
+         * @param listener Receives progress, may be null.
+         */
+        public Job(String keyword, String filterDate, String commentText, int commentCount, Listener listener) {
+            CommentEngine.validateJob(keyword, commentText, commentCount);
+            this.keyword = keyword;
+            this.filterDate = filterDate;
+            this.commentText = commentText;
+            this.commentCount = commentCount;
+            this.listener = listener != null ? listener : new Listener() {
+            };
+        }
+
+        /**
+         * Continues the search of an interrupted job instead of starting over.
+         *
+         * @param cursor Cursor of the next page to fetch, null for the first page.
+         * @param completed true if every page was already fetched.
+         */
+        public void resumeSearch(String cursor, boolean completed) {
+            this.startCursor = cursor;
+            this.searchCompleted = completed;
+        }
+
+        /**
+         * Adds a video found by an earlier run whose comments are not all posted yet.
+         *
+         * @param videoId The video to post on.
+         * @param commentsPosted Comments already posted on it.
+         */
+        public void addPendingItem(String videoId, int commentsPosted) {
+            seededItems.add(new WorkItem(this, videoId, commentsPosted));
+        }
+
+        /**
+         * Makes this job skip videos already taken by any other job sharing the
+         * same set, e.g. the other keywords of a batch. Call before submitting.
+         *
+         * @param claimedVideoIds A set created with {@link #newVideoIdSet()}.
+         */
+        public void dedupeWith(Set<String> claimedVideoIds) {
+            this.seenVideoIds = claimedVideoIds;
+            this.sharedVideoIds = true;
+        }
+
+        /**
+         * @return A thread-safe set for {@link #dedupeWith(Set)}.
+         */
+        public static Set<String> newVideoIdSet() {
+            return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        }
+
+        /**
+         * Sets the priority of the job, higher values are posted first. Call before submitting.
+         *
+         * @param priority The priority, 0 by default.
+         */
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public String getCommentText() {
+            return commentText;
+        }
+
+        public int getCommentCount() {
+            return commentCount;
+        }
+
+        public int getVideosFound() {
+            return videosFound.get();
+        }
+
+        public int getCommentsPosted() {
+            return commentsPosted.get();
+        }
+
+        public int getFailedItems() {
+            return failedItems.get();
+        }
+
+        /**
+         * @return Failed videos whose error cannot pass when repeated, included in
+         *         {@link #getFailedItems()}. They are dead-lettered and not worth a retry.
+         */
+        public int getRejectedItems() {
+            return rejectedItems.get();
+        }
+
+        /**
+         * @return Videos dropped by the filter stage or already taken by another job of the batch.
+         */
+        public int getSkippedItems() {
+            return skippedItems.get();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isFinished() {
+            return finished.getCount() == 0;
+        }
+
+        /**
+         * Stops searching and skips every video not yet being posted on.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Finishes a job that could not be handed to a pipeline. The error is
+         * reported like a failed search, so the job ends with one failed item
+         * instead of waiting for good. Only for jobs that were never submitted.
+         *
+         * @param error Why the job could not start.
+         */
+        void fail(RuntimeException error) {
+            failedItems.incrementAndGet();
+            listener.onItemFailed(this, null, error);
+            release();
+        }
+
+        /**
+         * Blocks until every video of the job has been handled or skipped.
+         */
+        public void await() throws InterruptedException {
+            finished.await();
+        }
+
+        /**
+         * @return true if the job finished within the timeout.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        // Registers a video, returns false for duplicates within this job or its batch
+        boolean track(String videoId) {
+            if (!seenVideoIds.add(videoId)) {
+                if (sharedVideoIds) {
+                    // May also be a repeat within this job, the search rarely returns those
+                    skippedItems.incrementAndGet();
+                }
+                return false;
+            }
+            outstanding.incrementAndGet();
+            videosFound.incrementAndGet();
+            return true;
+        }
+
+        void release() {
+            if (outstanding.decrementAndGet() == 0) {
+                // Notify first, so whoever awaits the job sees what the listener persisted
+                try {
+                    listener.onJobFinished(this);
+                } finally {
+                    finished.countDown();
+                }
+            }
+        }
+    }
+
+    /**
+     * A video waiting in the pipeline.
+     */
+    static final class WorkItem {
+        final Job job;
+        final String videoId;
+        final int commentsPosted;
+
+        WorkItem(Job job, String videoId, int commentsPosted) {
+            this.job = job;
+            this.videoId = videoId;
+            this.commentsPosted = commentsPosted;
+        }
+    }
+
+    private final CommentEngine engine;
+    private final Config config;
+    private final List<ItemFilter> filters = new CopyOnWriteArrayList<>();
+    private volatile ProcessedVideoIndex processedIndex;
+    private volatile ActionScheduler actionScheduler;
+    private volatile RetryPolicy retryPolicy;
+    private volatile CircuitBreaker circuitBreaker;
+    private volatile DeadLetterStore deadLetterStore;
+    private final StripedCounter retries = MetricsRegistry.getShared().counter(MetricsRegistry.RETRIES);
+    private final StripedCounter deadLetters = MetricsRegistry.getShared().counter(MetricsRegistry.DEAD_LETTERS);
+
+    private final BlockingQueue<Job> searchQueue;
+    private final BlockingQueue<WorkItem> filterQueue;
+    private final PostQueue postQueue;
+    private final ExecutorService workers;
+    private final Set<Job> activeJobs = new HashSet<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates the pipeline and starts its workers.
+     *
+     * @param engine The engine used for searching and posting.
+     * @param config Worker counts and queue size.
+     */
+    public CommentPipeline(CommentEngine engine, Config config) {
+        if (engine == null || config == null) {
+            throw new IllegalArgumentException("Engine and config must not be null.");
+        }
+        this.engine = engine;
+        this.config = config;
+        this.searchQueue = new ArrayBlockingQueue<>(config.queueCapacity);
+        this.filterQueue = new ArrayBlockingQueue<>(config.queueCapacity);
+        this.postQueue = new PostQueue(config.queueCapacity);
+
+        int workerCount = config.searchWorkers + config.filterWorkers + config.postWorkers;
+        this.workers = Executors.newFixedThreadPool(workerCount, new StageThreadFactory());
+        for (int i = 0; i < config.searchWorkers; i++) {
+            workers.execute(new SearchWorker());
+        }
+        for (int i = 0; i < config.filterWorkers; i++) {
+            workers.execute(new FilterWorker());
+        }
+        for (int i = 0; i < config.postWorkers; i++) {
+            workers.execute(new PostWorker());
+        }
+    }
+
+    /**
+     * Adds a check run in the filter stage before a video is posted on.
+     */
+    public void addFilter(ItemFilter filter) {
+        filters.add(filter);
+    }
+
+    /**
+     * Skips videos recorded in the index and records every completed video.
+     * Set it before submitting jobs.
+     *
+     * @param index The index shared by every entry point, or null to disable it.
+     */
+    public void setProcessedVideoIndex(ProcessedVideoIndex index) {
+        this.processedIndex = index;
+    }
+
+    /**
+     * Paces every posted comment through the scheduler. Set it before submitting jobs.
+     *
+     * @param scheduler The scheduler, usually {@link ActionScheduler#getShared()}, or null for no pacing.
+     */
+    public void setActionScheduler(ActionScheduler scheduler) {
+        this.actionScheduler = scheduler;
+    }
+
+    /**
+     * Sets how failed searches and comments are retried. Set it before submitting jobs.
+     *
+     * @param policy The policy, or null to fail on the first error.
+     */
+    public void setRetryPolicy(RetryPolicy policy) {
+        this.retryPolicy = policy;
+    }
+
+    /**
+     * Pauses the post stage while the breaker is open. Set it before submitting jobs.
+     *
+     * @param breaker The breaker guarding every posted comment, or null for none.
+     */
+    public void setCircuitBreaker(CircuitBreaker breaker) {
+        this.circuitBreaker = breaker;
+    }
+
+    /**
+     * Receives every video that failed after all retries. Set it before submitting jobs.
+     *
+     * @param store The store, or null to only report failures to the job listener.
+     */
+    public void setDeadLetterStore(DeadLetterStore store) {
+        this.deadLetterStore = store;
+    }
+
+    /**
+     * Queues a job, blocking while the search queue is full.
+     *
+     * @param job The job to run.
+     * @return The same job, to await or cancel it.
+     * @throws IllegalStateException If the pipeline was shut down.
+     */
+    public Job submit(Job job) throws InterruptedException {
+        synchronized (activeJobs) {
+            if (shutdown) {
+                throw new IllegalStateException("Pipeline is shut down");
+            }
+            activeJobs.add(job);
+        }
+        searchQueue.put(job);
+        return job;
+    }
+
+    /**
+     * Cancels every job and stops all workers. Jobs waiting in {@link Job#await()} are released.
+     */
+    public void shutdown() {
+        List<Job> jobs;
+        synchronized (activeJobs) {
+            shutdown = true;
+            jobs = new ArrayList<>(activeJobs);
+            activeJobs.clear();
+        }
+        workers.shutdownNow();
+        for (Job job : jobs) {
+            job.cancel();
+            job.finished.countDown();
+        }
+    }
+
+    /**
+     * Waits for the workers to stop after {@link #shutdown()}.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    // Called once per video and once for the search, the last call finishes the job
+    private void release(Job job) {
+        job.release();
+        if (job.isFinished()) {
+            ProcessedVideoIndex index = processedIndex;
+            if (index != null) {
+                try {
+                    index.flush();
+                } catch (RuntimeException e) {
+                    // Marks stay pending and are written with the next job
+                    CommentLog.w(TAG, "Writing processed videos failed after {}: {}", job.keyword, e);
+                }
+            }
+            synchronized (activeJobs) {
+                activeJobs.remove(job);
+            }
+        }
+    }
+
+    // Streams the result pages of queued jobs into the filter stage
+    private final class SearchWorker implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    Job job = searchQueue.take();
+                    search(job);
+                }
+            } catch (InterruptedException e) {
+                // Shut down
+            }
+        }
+
+        private void search(Job job) throws InterruptedException {
+            try {
+                // Videos stored by an interrupted run go first
+                for (WorkItem item : job.seededItems) {
+                    if (job.track(item.videoId)) {
+                        filterQueue.put(item);
+                    }
+                }
+                job.seededItems.clear();
+
+                if (!job.searchCompleted) {
+                    VideoSearchCursor cursor = engine.search(job.keyword, job.filterDate, job.startCursor);
+                    while (cursor.hasNext() && !job.cancelled) {
+                        VideoSearchPage page = fetchPage(job, cursor);
+                        job.listener.onPageFetched(job, page, cursor.getCursor());
+                        for (String videoId : page.getVideoIds()) {
+                            if (job.track(videoId)) {
+                                // Blocks while the next stage is busy
+                                filterQueue.put(new WorkItem(job, videoId, 0));
+                            }
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                job.failedItems.incrementAndGet();
+                job.listener.onItemFailed(job, null, e);
+            } finally {
+                release(job);
+            }
+        }
+    }
+
+    // Fetches the next page, retrying transient failures; the cursor only advances on success
+    private VideoSearchPage fetchPage(Job job, VideoSearchCursor cursor) throws InterruptedException {
+        RetryPolicy retry = retryPolicy;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return cursor.next();
+            } catch (RuntimeException e) {
+                if (retry == null || job.cancelled || !retry.shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                retries.increment();
+                Thread.sleep(retry.delayMillis(attempt));
+            }
+        }
+    }
+
+    // Drops videos that need no work
+    private final class FilterWorker implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    WorkItem item = filterQueue.take();
+                    if (item.job.cancelled) {
+                        release(item.job);
+                    } else if (!accept(item)) {
+                        item.job.skippedItems.incrementAndGet();
+                        release(item.job);
+                    } else {
+                        postQueue.put(item);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Shut down
+            }
+        }
+
+        private boolean accept(WorkItem item) {
+            ProcessedVideoIndex index = processedIndex;
+            if (index != null && index.isProcessed(item.videoId)) {
+                return false;
+            }
+            for (ItemFilter filter : filters) {
+                if (!filter.accept(item.job, item.videoId)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Posts the remaining comments on each video
+    private final class PostWorker implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    WorkItem item = postQueue.take();
+                    try {
+                        post(item);
+                    } finally {
+                        release(item.job);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Shut down
+            }
+        }
+
+        private void post(WorkItem item) throws InterruptedException {
+            Job job = item.job;
+            int posted = item.commentsPosted;
+            try {
+                for (; posted < job.commentCount && !job.cancelled; posted++) {
+                    if (!postWithRetry(job, item.videoId)) {
+                        // Cancelled while waiting for its turn
+                        break;
+                    }
+                    job.commentsPosted.incrementAndGet();
+                    job.listener.onCommentPosted(job, item.videoId, posted);
+                }
+                if (!job.cancelled) {
+                    ProcessedVideoIndex index = processedIndex;
+                    if (index != null) {
+                        index.markProcessed(item.videoId);
+                    }
+                    job.listener.onItemCompleted(job, item.videoId);
+                }
+            } catch (RuntimeException e) {
+                job.failedItems.incrementAndGet();
+                if (!RetryPolicy.isRetryable(e)) {
+                    job.rejectedItems.incrementAndGet();
+                }
+                deadLetter(job, item.videoId, posted, e);
+                job.listener.onItemFailed(job, item.videoId, e);
+            }
+        }
+
+        // Posts one comment, returns false if the job was cancelled while waiting
+        private boolean postWithRetry(Job job, String videoId) throws InterruptedException {
+            ActionScheduler scheduler = actionScheduler;
+            CircuitBreaker breaker = circuitBreaker;
+            RetryPolicy retry = retryPolicy;
+            for (int attempt = 1; ; attempt++) {
+                // The breaker comes last, a probe call it lets through must be made right away
+                if (scheduler != null && !scheduler.acquire(job)) {
+                    return false;
+                }
+                if (breaker != null && !breaker.awaitPermission(job)) {
+                    return false;
+                }
+                try {
+                    engine.postComment(videoId, job.commentText);
+                    if (breaker != null) {
+                        breaker.recordSuccess();
+                    }
+                    return true;
+                } catch (RuntimeException e) {
+                    // A rejected video says nothing about the backend, it must not open the breaker
+                    boolean retryable = RetryPolicy.isRetryable(e);
+                    if (breaker != null) {
+                        if (retryable) {
+                            breaker.recordFailure();
+                        } else {
+                            breaker.recordIgnored();
+                        }
+                    }
+                    // Failures that cannot pass when repeated go to the dead letters right away
+                    if (!retryable || retry == null || job.cancelled || !retry.shouldRetry(e, attempt)) {
+                        throw e;
+                    }
+                    retries.increment();
+                    Thread.sleep(retry.delayMillis(attempt));
+                }
+            }
+        }
+
+        private void deadLetter(Job job, String videoId, int commentsPosted, RuntimeException error) {
+            DeadLetterStore store = deadLetterStore;
+            if (store == null) {
+                return;
+            }
+            deadLetters.increment();
+            try {
+                store.add(job, videoId, commentsPosted, error);
+            } catch (RuntimeException e) {
+                CommentLog.e(TAG, "Could not store failed video {}: {}", videoId, e);
+            }
+        }
+    }
+
+    /**
+     * Bounded queue feeding the post stage, ordered by {@link FairQueue}.
+     */
+    private static final class PostQueue {
+        private final FairQueue<WorkItem> items = new FairQueue<>();
+        private final int capacity;
+
+        PostQueue(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void put(WorkItem item) throws InterruptedException {
+            while (items.size() >= capacity) {
+                wait();
+            }
+            items.add(item.job, item.job.priority, item);
+            notifyAll();
+        }
+
+        synchronized WorkItem take() throws InterruptedException {
+            while (items.isEmpty()) {
+                wait();
+            }
+            WorkItem item = items.poll();
+            notifyAll();
+            return item;
+        }
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "comment-pipeline-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.madhub.tiktokcommenttool;
+
+import android.content.Context;
+
+import java.io.File;
+
+/**
+ * CommentPipelineFactory creates the pipelines of the app's entry points, all
+ * sharing the same processed video index, action scheduler, circuit breaker
+ * and dead-letter store, and the task managers running persisted tasks on them.
+ * <p>
+ * The pipelines run on the engine of {@link #getEngine()}. It talks to the
+ * backend through {@link HttpCommentTransport} when the build sets
+ * {@code BuildConfig.COMMENT_API_BASE_URL}, e.g. with
+ * {@code ./gradlew assembleRelease -PcommentApiBaseUrl=https://api.example.com/v1/},
+ * and stays on the offline {@link FakeCommentTransport} otherwise.
+ * </p>
+ */
+public final class CommentPipelineFactory {
+
+    // Opens once half of the last 20 comments failed, then probes again every 10 seconds
+    private static final CircuitBreaker SHARED_BREAKER = new CircuitBreaker(20, 0.5, 10000L);
+
+    // Set once the default engine has been switched to the configured backend, if any
+    private static volatile boolean engineConfigured;
+
+    // Private constructor to prevent instantiation of the utility class
+    private CommentPipelineFactory() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Creates a pipeline on the default engine. The caller owns it and must shut it down.
+     *
+     * @param context Any context.
+     * @return The running pipeline.
+     */
+    public static CommentPipeline create(Context context) {
+        CommentDatabase database = CommentDatabase.getInstance(context);
+        CommentPipeline pipeline = new CommentPipeline(getEngine(), CommentPipeline.Config.DEFAULT);
+        // Videos handled by any earlier job or run are skipped before posting
+        pipeline.setProcessedVideoIndex(RoomProcessedVideoStore.getSharedIndex(context));
+        // Comments of every pipeline are paced to the shared actions-per-window limit
+        pipeline.setActionScheduler(ActionScheduler.getShared());
+        // Failures are retried per video, an outage pauses posting instead of failing every video
+        pipeline.setRetryPolicy(RetryPolicy.DEFAULT);
+        pipeline.setCircuitBreaker(SHARED_BREAKER);
+        pipeline.setDeadLetterStore(new RoomDeadLetterStore(database));
+        return pipeline;
+    }
+
+    /**
+     * @return The engine shared by the app, on the HTTP backend if the build configures one.
+     */
+    public static CommentEngine getEngine() {
+        if (!engineConfigured) {
+            synchronized (CommentPipelineFactory.class) {
+                if (!engineConfigured) {
+                    String baseUrl = BuildConfig.COMMENT_API_BASE_URL;
+                    if (!baseUrl.isEmpty()) {
+                        CommentEngine.setDefault(createHttpEngine(baseUrl));
+                    }
+                    engineConfigured = true;
+                }
+            }
+        }
+        return CommentEngine.getDefault();
+    }
+
+    /**
+     * Creates an engine talking to the backend over HTTP, behind the shared search cache.
+     *
+     * @param baseUrl The backend base URL, e.g. {@code https://api.example.com/v1/}.
+     * @return The engine.
+     */
+    public static CommentEngine createHttpEngine(String baseUrl) {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            throw new IllegalArgumentException("Invalid parameters provided for the HTTP engine.");
+        }
+        HttpCommentTransport transport = new HttpCommentTransport(baseUrl);
+        return new CommentEngine(transport, transport, SearchResultCache.getShared());
+    }
+
+    /**
+     * Creates a task manager on its own pipeline. Call {@link CommentTaskManager#shutdown()}
+     * once it is no longer needed.
+     *
+     * @param context Any context.
+     * @return The task manager.
+     */
+    public static CommentTaskManager createTaskManager(Context context) {
+        return createTaskManager(context, create(context), true);
+    }
+
+    /**
+     * Creates a task manager on a pipeline owned by the caller.
+     *
+     * @param context Any context.
+     * @param pipeline The pipeline running the tasks.
+     * @return The task manager.
+     */
+    public static CommentTaskManager createTaskManager(Context context, CommentPipeline pipeline) {
+        return createTaskManager(context, pipeline, false);
+    }
+
+    private static CommentTaskManager createTaskManager(Context context, CommentPipeline pipeline,
+                                                        boolean ownsPipeline) {
+        CommentDatabase database = CommentDatabase.getInstance(context);
+        CommentLog.start(new File(context.getFilesDir(), "logs"));
+        SearchResultCache.getShared().setDiskTier(new RoomSearchCacheTier(database));
+        return new CommentTaskManager(database.taskDao(), database, pipeline, ownsPipeline, context.getFilesDir());
+    }
+}
@@ -0,0 +1,61 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Update;
+
+import java.util.List;
+
+/**
+ * Data access for persisted comment tasks and their per-video work items.
+ */
+@Dao
+public interface CommentTaskDao {
+
+    @Insert
+    long insertTask(CommentTaskEntity task);
+
+    @Insert
+    long[] insertTasks(List<CommentTaskEntity> tasks);
+
+    @Update
+    void updateTask(CommentTaskEntity task);
+
+    @Query("SELECT * FROM comment_tasks WHERE id = :taskId")
+    CommentTaskEntity getTask(long taskId);
+
+    // Keyset paging in (batchId, id) order, so tasks of one batch stay together without loading the whole queue
+    @Query("SELECT * FROM comment_tasks WHERE state = " + CommentTaskEntity.STATE_PENDING
+            + " AND (batchId > :afterBatchId OR (batchId = :afterBatchId AND id > :afterId))"
+            + " ORDER BY batchId, id LIMIT :limit")
+    List<CommentTaskEntity> getPendingTasksAfter(long afterBatchId, long afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM comment_tasks WHERE state = " + CommentTaskEntity.STATE_PENDING)
+    int countPendingTasks();
+
+    // Duplicate videos returned by the search are ignored thanks to the unique index
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertWorkItems(List<CommentWorkItemEntity> items);
+
+    @Query("UPDATE comment_work_items SET commentsPosted = :commentsPosted, completed = :completed "
+            + "WHERE taskId = :taskId AND videoId = :videoId")
+    void updateWorkItemProgress(long taskId, String videoId, int commentsPosted, boolean completed);
+
+    // Keeps the posted count, the video is done even though not every comment went out
+    @Query("UPDATE comment_work_items SET completed = 1 WHERE taskId = :taskId AND videoId = :videoId")
+    void completeWorkItem(long taskId, String videoId);
+
+    @Query("SELECT * FROM comment_work_items WHERE taskId = :taskId AND completed = 0 ORDER BY id")
+    List<CommentWorkItemEntity> getPendingWorkItems(long taskId);
+
+    // A completed task never reads its work items again
+    @Query("DELETE FROM comment_work_items WHERE taskId = :taskId")
+    void deleteWorkItems(long taskId);
+
+    // Work items of the deleted tasks go with them through the foreign key cascade
+    @Query("DELETE FROM comment_tasks WHERE state = " + CommentTaskEntity.STATE_COMPLETED
+            + " AND createdAt < :createdBefore")
+    int deleteCompletedTasks(long createdBefore);
+}
@@ -0,0 +1,38 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * CommentTaskEntity is the persisted form of a comment task configured through
+ * {@link CommentTaskManager}. Keeping the configuration in Room lets an interrupted
+ * task be resumed after the process was killed or the device rebooted.
+ */
+@Entity(tableName = "comment_tasks")
+public class CommentTaskEntity {
+
+    // Task states
+    public static final int STATE_PENDING = 0;
+    public static final int STATE_COMPLETED = 1;
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    // Id of the first task of the batch this task was created in, 0 for a single task
+    @ColumnInfo(defaultValue = "0")
+    public long batchId;
+
+    public String keyword;
+    public String commentContent;
+    public int commentCount;
+
+    // Cursor of the next search page to fetch, null before the first page
+    public String searchCursor;
+
+    // Set once every search result has been stored as a work item
+    public boolean searchCompleted;
+
+    public int state;
+    public long createdAt;
+}
@@ -0,0 +1,150 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CommentTaskExecutor runs the comment jobs handed to {@link CommentWorkerService}
+ * on a fixed, bounded pool of worker threads.
+ * <p>
+ * Every job is tracked by the {@code startId} the service received for it; one
+ * start may queue several jobs. The executor only reports the service as idle once the last outstanding start has
+ * finished, so a short job can no longer stop the service while longer jobs are
+ * still running. Both the number of worker threads and the number of queued jobs
+ * are capped, which keeps thread count and memory flat on devices that run 24/7.
+ * </p>
+ */
+public class CommentTaskExecutor {
+
+    // Constants for log identification
+    private static final String TAG = "CommentTaskExecutor";
+
+    /**
+     * Callback invoked once no started job is queued or running anymore.
+     */
+    public interface IdleListener {
+        /**
+         * @param lastStartId The most recent startId handed to the executor,
+         *                    suitable for {@code Service.stopSelfResult(int)}.
+         */
+        void onIdle(int lastStartId);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final IdleListener idleListener;
+    private final LatencyHistogram queueWait = MetricsRegistry.getShared().latency(MetricsRegistry.QUEUE_WAIT);
+
+    // Number of queued or running jobs, guarded by "this"
+    private int activeJobs;
+    private int lastStartId;
+
+    /**
+     * Creates a new executor.
+     *
+     * @param parallelism Maximum number of jobs that run at the same time.
+     * @param queueCapacity Maximum number of jobs waiting for a free worker.
+     * @param idleListener Notified when the last outstanding job has finished.
+     */
+    public CommentTaskExecutor(int parallelism, int queueCapacity, IdleListener idleListener) {
+        if (parallelism <= 0 || queueCapacity <= 0 || idleListener == null) {
+            throw new IllegalArgumentException("Invalid parameters provided for the task executor.");
+        }
+        this.idleListener = idleListener;
+        this.executor = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity),
+                new WorkerThreadFactory());
+        // Let idle workers die so a quiet service does not keep threads around
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a job for the given startId.
+     *
+     * @param startId The startId the service received for this job.
+     * @param job The work to run on a worker thread.
+     * @return true if the job was queued, false if the queue is full or the executor is shut down.
+     */
+    public boolean submit(final int startId, final Runnable job) {
+        begin(startId);
+
+        final long queuedAt = System.nanoTime();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    queueWait.recordSince(queuedAt);
+                    try {
+                        job.run();
+                    } catch (RuntimeException e) {
+                        CommentLog.e(TAG, "Job {} failed: {}", startId, e);
+                    } finally {
+                        finish();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            CommentLog.w(TAG, "Job {} rejected, queue is full: {}", startId, e);
+            finish();
+            return false;
+        }
+    }
+
+    /**
+     * Marks a startId as done without running anything, e.g. for invalid intents.
+     *
+     * @param startId The startId that needs no work.
+     */
+    public void skip(int startId) {
+        begin(startId);
+        finish();
+    }
+
+    /**
+     * @return The number of jobs currently queued or running.
+     */
+    public synchronized int getActiveCount() {
+        return activeJobs;
+    }
+
+    /**
+     * Stops accepting jobs and interrupts the running ones.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void begin(int startId) {
+        activeJobs++;
+        lastStartId = Math.max(lastStartId, startId);
+    }
+
+    private void finish() {
+        int idleStartId;
+        synchronized (this) {
+            if (--activeJobs > 0) {
+                return;
+            }
+            idleStartId = lastStartId;
+        }
+        idleListener.onIdle(idleStartId);
+    }
+
+    // Names worker threads and keeps them below the UI thread's priority
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "comment-worker-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
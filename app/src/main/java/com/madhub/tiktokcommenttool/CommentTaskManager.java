@@ -1,8 +1,19 @@
 ```java
 package com.madhub.tiktokcommenttool;
 
-import android.content.Context;
-import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CommentTaskManager is responsible for managing tasks related to TikTok comments.
@@ -12,26 +23,128 @@ import android.util.Log;
  * The manager implements state management and task configuration for efficient 
  * operations, ensuring compliance with TikTok's platform guidelines.
  * </p>
+ * <p>
+ * Tasks and their per-video progress are persisted in {@link CommentDatabase}.
+ * Progress is checkpointed in batches, so after a process kill a task resumes
+ * from its last checkpoint instead of searching and posting from scratch.
+ * The manager only sees the database through {@link CommentTaskDao} and
+ * {@link Transactions}, so it runs on a plain JVM too; the app creates it
+ * with {@link CommentPipelineFactory#createTaskManager(android.content.Context, CommentPipeline)}.
+ * </p>
+ * <p>
+ * Tasks run on a {@link CommentPipeline}, so searching, filtering and posting
+ * of different videos overlap instead of running one video after the other.
+ * </p>
+ * <p>
+ * {@link #executeCommentBatch(List, BatchListener)} runs many keyword/comment
+ * configurations as one batch: the keywords are searched concurrently through
+ * the same pipeline, a video found by several keywords is posted on only once,
+ * and progress is reported per keyword.
+ * </p>
  */
 public class CommentTaskManager {
 
     // Constants for log identification
     private static final String TAG = "CommentTaskManager";
 
+    // Number of posted comments between two progress checkpoints
+    private static final int CHECKPOINT_INTERVAL = 10;
+
+    private static final String METRICS_FILE_NAME = "metrics.json";
+
+    // Number of imported tasks written per transaction
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    // Number of pending tasks loaded and run at a time by resumePendingTasks
+    private static final int RESUME_PAGE_SIZE = 32;
+
+    // Completed tasks are kept this long for reporting, then deleted
+    private static final long COMPLETED_TASK_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    // Tasks running in this process, shared by every manager so overlapping resumes never start a task twice
+    private static final Set<Long> RUNNING_TASK_IDS = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+
     // Configuration parameters
     private String commentContent;
     private int commentCount;
     private String videoKeyword;
-    private Context context;
+
+    // Directory the metrics snapshot is written to
+    private final File filesDir;
+
+    // Persistent task queue
+    private final Transactions database;
+    private final CommentTaskDao taskDao;
+
+    // Pipeline running the tasks, created here unless one is passed in
+    private final CommentPipeline pipeline;
+    private final boolean ownsPipeline;
 
     /**
-     * Constructor to initialize the CommentTaskManager.
-     * 
-     * @param context Application context for managing resources.
+     * One keyword of a batch together with the comment posted on its videos.
      */
-    public CommentTaskManager(Context context) {
-        this.context = context;
-        Log.d(TAG, "CommentTaskManager initialized");
+    public static final class BatchEntry {
+        final String keyword;
+        final String commentContent;
+        final int commentCount;
+
+        /**
+         * @param keyword Keyword to search for TikTok videos.
+         * @param commentContent Content of the comment to be posted.
+         * @param commentCount Number of comments to post on every video.
+         */
+        public BatchEntry(String keyword, String commentContent, int commentCount) {
+            CommentEngine.validateJob(keyword, commentContent, commentCount);
+            this.keyword = keyword;
+            this.commentContent = commentContent;
+            this.commentCount = commentCount;
+        }
+    }
+
+    /**
+     * Receives the progress of every keyword of a batch. Called on pipeline
+     * worker threads, possibly concurrently for different keywords.
+     */
+    public interface BatchListener {
+        /**
+         * Called after each progress checkpoint of a keyword and once when it finishes.
+         *
+         * @param job The job of the keyword, with its found, posted, skipped and failed counts.
+         */
+        void onKeywordProgress(CommentPipeline.Job job);
+    }
+
+    /**
+     * Runs a unit of work atomically. {@link CommentDatabase} implements it through Room.
+     */
+    public interface Transactions {
+        void runInTransaction(Runnable body);
+    }
+
+    /**
+     * Constructor to initialize the CommentTaskManager on a pipeline owned by the caller.
+     *
+     * @param taskDao The persistent task queue.
+     * @param transactions Runs the checkpoint writes of the task queue atomically.
+     * @param pipeline The pipeline running the tasks, e.g. one from {@link CommentPipelineFactory}.
+     * @param filesDir Directory the metrics snapshot is written to.
+     */
+    public CommentTaskManager(CommentTaskDao taskDao, Transactions transactions, CommentPipeline pipeline,
+                              File filesDir) {
+        this(taskDao, transactions, pipeline, false, filesDir);
+    }
+
+    CommentTaskManager(CommentTaskDao taskDao, Transactions transactions, CommentPipeline pipeline,
+                       boolean ownsPipeline, File filesDir) {
+        if (taskDao == null || transactions == null || pipeline == null || filesDir == null) {
+            throw new IllegalArgumentException("Invalid parameters provided for the task manager.");
+        }
+        this.taskDao = taskDao;
+        this.database = transactions;
+        this.pipeline = pipeline;
+        this.ownsPipeline = ownsPipeline;
+        this.filesDir = filesDir;
+        CommentLog.d(TAG, "CommentTaskManager initialized");
     }
 
     /**
@@ -46,65 +159,501 @@ public class CommentTaskManager {
         this.commentCount = commentCount;
         this.videoKeyword = videoKeyword;
 
-        Log.d(TAG, "Comment settings configured: "
-                + "Content=" + commentContent
-                + ", Count=" + commentCount
-                + ", Keyword=" + videoKeyword);
+        CommentLog.d(TAG, "Comment settings configured: Content={}, Keyword={}, Count={}",
+                commentContent, videoKeyword, commentCount);
     }
 
     /**
      * Executes the comment posting task based on the configured settings.
-     * This method handles the core logic of searching for videos and posting comments.
+     * The task is persisted first, so it can be resumed by {@link #resumePendingTasks()}
+     * if the process dies before it completes. Blocks until the task is done,
+     * must not be called on the main thread.
      */
     public void executeCommentTask() {
-        // Start the video search based on the provided keyword
-        String[] videoIds = searchVideosByKeyword(videoKeyword);
+        CommentEngine.validateJob(videoKeyword, commentContent, commentCount);
+
+        CommentTaskEntity task = new CommentTaskEntity();
+        task.keyword = videoKeyword;
+        task.commentContent = commentContent;
+        task.commentCount = commentCount;
+        task.state = CommentTaskEntity.STATE_PENDING;
+        task.createdAt = System.currentTimeMillis();
+
+        List<CommentTaskEntity> claimed = insertClaimed(Collections.singletonList(task), false);
+        runTasks(claimed, null, null);
+    }
+
+    /**
+     * Executes many keyword/comment configurations as one batch. All tasks are
+     * persisted in one transaction and then searched concurrently through the
+     * pipeline; a video returned for several keywords only gets the comments of
+     * the keyword that found it first. Interrupted batches are resumed by
+     * {@link #resumePendingTasks()}. Blocks until the whole batch is done,
+     * must not be called on the main thread.
+     *
+     * @param entries The keywords of the batch.
+     * @param listener Receives per-keyword progress, may be null.
+     */
+    public void executeCommentBatch(List<BatchEntry> entries, BatchListener listener) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("Invalid parameters provided for the comment batch.");
+        }
 
-        // Iterate through the found videos and post comments
-        for (String videoId : videoIds) {
-            postCommentsOnVideo(videoId, commentCount);
+        final long now = System.currentTimeMillis();
+        final List<CommentTaskEntity> tasks = new ArrayList<>(entries.size());
+        for (BatchEntry entry : entries) {
+            CommentTaskEntity task = new CommentTaskEntity();
+            task.keyword = entry.keyword;
+            task.commentContent = entry.commentContent;
+            task.commentCount = entry.commentCount;
+            task.state = CommentTaskEntity.STATE_PENDING;
+            task.createdAt = now;
+            tasks.add(task);
         }
 
-        Log.d(TAG, "Comment task executed: " + commentCount + " comments posted.");
+        List<CommentTaskEntity> claimed = insertClaimed(tasks, true);
+        CommentLog.d(TAG, "Comment batch {} created with {} keywords", Long.valueOf(tasks.get(0).batchId), tasks.size());
+
+        runTasks(claimed, new HashMap<Long, Set<String>>(), listener);
     }
 
     /**
-     * Searches TikTok videos based on a keyword.
-     * This method simulates the interaction with TikTok's API to retrieve video IDs.
-     * 
-     * @param keyword The keyword to search videos.
-     * @return An array of video IDs that match the keyword.
+     * Persists new tasks in one transaction and claims them before it commits,
+     * so a concurrent {@link #resumePendingTasks()} never sees them unclaimed
+     * and cannot run them a second time.
+     *
+     * @param tasks The new tasks, their ids are set.
+     * @param batch Whether the tasks form a batch, identified by the id of its first task.
+     * @return The tasks that were claimed, the ones to run.
      */
-    private String[] searchVideosByKeyword(String keyword) {
-        // Example method to simulate video search - replace with actual API call
-        // For demonstration purposes, we return dummy video IDs
-        Log.d(TAG, "Searching videos with keyword: " + keyword);
-        return new String[]{"video1", "video2", "video3"};
+    private List<CommentTaskEntity> insertClaimed(final List<CommentTaskEntity> tasks, final boolean batch) {
+        final List<CommentTaskEntity> claimed = new ArrayList<>(tasks.size());
+        try {
+            database.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    CommentTaskEntity first = tasks.get(0);
+                    first.id = taskDao.insertTask(first);
+                    if (batch) {
+                        first.batchId = first.id;
+                        taskDao.updateTask(first);
+                    }
+
+                    List<CommentTaskEntity> rest = tasks.subList(1, tasks.size());
+                    for (CommentTaskEntity task : rest) {
+                        task.batchId = first.batchId;
+                    }
+                    long[] ids = taskDao.insertTasks(rest);
+                    for (int i = 0; i < ids.length; i++) {
+                        rest.get(i).id = ids[i];
+                    }
+
+                    for (CommentTaskEntity task : tasks) {
+                        // Same as claim(), a task already running elsewhere is left to that run
+                        if (RUNNING_TASK_IDS.add(task.id)) {
+                            claimed.add(task);
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rolled back, the ids are free again
+            for (CommentTaskEntity task : claimed) {
+                RUNNING_TASK_IDS.remove(task.id);
+            }
+            throw e;
+        }
+        return claimed;
     }
 
     /**
-     * Posts comments on a specified video.
-     * This method handles the logic for posting a comment multiple times if needed.
-     * 
-     * @param videoId The ID of the video to post comments on.
-     * @param count The number of comments to post.
+     * Imports task definitions from a JSON lines or CSV file as pending tasks,
+     * without running them; start them with {@link #resumePendingTasks()}.
+     * The file is parsed record by record and the tasks are written in
+     * transactions of {@link #IMPORT_BATCH_SIZE}, so memory use does not grow
+     * with the file. Must not be called on the main thread.
+     *
+     * @param reader The file contents, buffered.
+     * @param format {@link JobFileParser#FORMAT_JSON_LINES} or {@link JobFileParser#FORMAT_CSV}.
+     * @return The number of imported and skipped records.
+     * @throws IOException If the file could not be read. Batches written before stay imported.
      */
-    private void postCommentsOnVideo(String videoId, int count) {
-        for (int i = 0; i < count; i++) {
-            // Simulate posting a comment to the video - replace with actual API logic
-            Log.d(TAG, "Posting comment on " + videoId + ": " + commentContent);
-            // Here you would typically call the TikTok API to post the comment
+    public JobFileParser.Result importTasks(Reader reader, int format) throws IOException {
+        final long now = System.currentTimeMillis();
+        final List<CommentTaskEntity> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        JobFileParser.Result result = new JobFileParser(format).parse(reader, new JobFileParser.Sink() {
+            @Override
+            public void onJob(String keyword, String comment, int commentCount) {
+                CommentTaskEntity task = new CommentTaskEntity();
+                task.keyword = keyword;
+                task.commentContent = comment;
+                task.commentCount = commentCount;
+                task.state = CommentTaskEntity.STATE_PENDING;
+                task.createdAt = now;
+                batch.add(task);
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    insertImportBatch(batch);
+                }
+            }
+        });
+        insertImportBatch(batch);
+        CommentLog.i(TAG, "Imported {} comment tasks, skipped {}", result.accepted, result.rejected);
+        return result;
+    }
+
+    private void insertImportBatch(List<CommentTaskEntity> batch) {
+        if (!batch.isEmpty()) {
+            // A single @Insert of a list already runs in one transaction
+            taskDao.insertTasks(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Continues every task that was interrupted before it completed, starting
+     * from its last checkpoint. Tasks are loaded and run in pages of
+     * {@link #RESUME_PAGE_SIZE}, so a large queue is never held in memory at
+     * once; the tasks of a page run concurrently in the pipeline. Tasks already
+     * running in this process, e.g. from an overlapping resume, are skipped.
+     * Completed tasks older than a week are deleted first.
+     * Blocks until all of them are done, must not be called on the main thread.
+     *
+     * @return The number of tasks that were resumed.
+     */
+    public int resumePendingTasks() {
+        pruneCompletedTasks();
+        ResumeCursor cursor = new ResumeCursor(null);
+        while (!Thread.currentThread().isInterrupted() && cursor.runNextPage()) {
+            // Next page
+        }
+        return cursor.resumed;
+    }
+
+    /**
+     * Like {@link #resumePendingTasks()}, but runs every page as its own job on
+     * the executor and returns at once. Between two pages the resume goes to
+     * the back of the executor's queue, so a long backlog takes turns with
+     * other work instead of holding a worker until it is done. If the executor
+     * rejects a page, its tasks stay pending for the next resume.
+     *
+     * @param executor Runs the pages one after the other, e.g. the executor of {@link CommentWorkerService}.
+     */
+    public void resumePendingTasks(Executor executor) {
+        ResumeCursor cursor = new ResumeCursor(executor);
+        try {
+            executor.execute(cursor);
+        } catch (RejectedExecutionException e) {
+            CommentLog.w(TAG, "Resume of pending comment tasks rejected: {}", e);
+        }
+    }
+
+    private void pruneCompletedTasks() {
+        int pruned = taskDao.deleteCompletedTasks(System.currentTimeMillis() - COMPLETED_TASK_RETENTION_MILLIS);
+        if (pruned > 0) {
+            CommentLog.d(TAG, "Deleted {} completed comment tasks", pruned);
+        }
+    }
+
+    /**
+     * Position of a resume in the pending tasks, which come in batch order.
+     * Run as a job it resumes one page and queues itself for the next.
+     */
+    private final class ResumeCursor implements Runnable {
+        private final Executor executor;
+        private long afterBatchId = -1;
+        private long afterId = -1;
+        // Tasks of the same batch keep deduplicating videos among each other, also across pages
+        private final Map<Long, Set<String>> batchVideoIds = new HashMap<>();
+        private int resumed;
+
+        ResumeCursor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            // Once, before the first page
+            if (afterId < 0) {
+                pruneCompletedTasks();
+            }
+            if (!runNextPage() || Thread.currentThread().isInterrupted()) {
+                CommentLog.d(TAG, "Resumed {} pending comment tasks", resumed);
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                CommentLog.w(TAG, "Resume stopped after {} tasks: {}", resumed, e);
+            }
+        }
+
+        // Claims and runs the next page, returns false once no pending task is left
+        boolean runNextPage() {
+            List<CommentTaskEntity> page = taskDao.getPendingTasksAfter(afterBatchId, afterId, RESUME_PAGE_SIZE);
+            if (page.isEmpty()) {
+                return false;
+            }
+            List<CommentTaskEntity> claimed = new ArrayList<>(page.size());
+            for (CommentTaskEntity task : page) {
+                afterBatchId = task.batchId;
+                afterId = task.id;
+                CommentTaskEntity current = claim(task.id);
+                if (current != null) {
+                    CommentLog.d(TAG, "Resuming comment task {}", current.id);
+                    claimed.add(current);
+                }
+            }
+            // Pages come in batch order, earlier batches cannot show up again
+            batchVideoIds.keySet().retainAll(Collections.singleton(afterBatchId));
+
+            runTasks(claimed, batchVideoIds, null);
+            resumed += claimed.size();
+            return true;
+        }
+    }
+
+    // Marks a task as running, returns its current state or null if it is running already or done
+    private CommentTaskEntity claim(long taskId) {
+        if (!RUNNING_TASK_IDS.add(taskId)) {
+            return null;
+        }
+        // The page may be stale, the task could have finished since it was read
+        CommentTaskEntity task = taskDao.getTask(taskId);
+        if (task == null || task.state != CommentTaskEntity.STATE_PENDING) {
+            RUNNING_TASK_IDS.remove(taskId);
+            return null;
+        }
+        return task;
+    }
+
+    /**
+     * Stops the pipeline if this manager created it. Running tasks stay pending
+     * and continue from their last checkpoint on the next resume.
+     */
+    public void shutdown() {
+        if (ownsPipeline) {
+            pipeline.shutdown();
+        }
+    }
+
+    /**
+     * Submits a persisted task to the pipeline: videos stored by an interrupted
+     * run go first, then the search continues from the last stored page.
+     *
+     * @param task The task to run.
+     * @param claimedVideoIds Videos shared with the other tasks of its batch, null for a single task.
+     * @param listener Receives the progress of a batch task, may be null.
+     * @return The running pipeline job.
+     */
+    private CommentPipeline.Job startTask(CommentTaskEntity task, Set<String> claimedVideoIds,
+                                          BatchListener listener) {
+        CommentPipeline.Job job = new CommentPipeline.Job(task.keyword, null,
+                task.commentContent, task.commentCount, new TaskProgress(task, listener));
+        job.resumeSearch(task.searchCursor, task.searchCompleted);
+        if (claimedVideoIds != null) {
+            job.dedupeWith(claimedVideoIds);
+        }
+        for (CommentWorkItemEntity item : taskDao.getPendingWorkItems(task.id)) {
+            job.addPendingItem(item.videoId, item.commentsPosted);
+        }
+
+        try {
+            return pipeline.submit(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing task " + task.id, e);
+        }
+    }
+
+    /**
+     * Runs claimed tasks concurrently and waits for them, then releases their claims.
+     *
+     * @param tasks The tasks, already added to {@link #RUNNING_TASK_IDS}.
+     * @param batchVideoIds Videos claimed per batch id, filled as needed; null if no task is part of a batch.
+     * @param listener Receives the progress of batch tasks, may be null.
+     */
+    private void runTasks(List<CommentTaskEntity> tasks, Map<Long, Set<String>> batchVideoIds,
+                          BatchListener listener) {
+        List<CommentPipeline.Job> jobs = new ArrayList<>(tasks.size());
+        try {
+            for (CommentTaskEntity task : tasks) {
+                Set<String> claimedVideoIds = null;
+                if (task.batchId != 0 && batchVideoIds != null) {
+                    claimedVideoIds = batchVideoIds.get(task.batchId);
+                    if (claimedVideoIds == null) {
+                        claimedVideoIds = CommentPipeline.Job.newVideoIdSet();
+                        batchVideoIds.put(task.batchId, claimedVideoIds);
+                    }
+                }
+                jobs.add(startTask(task, claimedVideoIds, listener));
+            }
+            awaitJobs(jobs);
+        } catch (RuntimeException e) {
+            // Tasks already queued must not keep running without a claim
+            for (CommentPipeline.Job job : jobs) {
+                job.cancel();
+            }
+            throw e;
+        } finally {
+            for (CommentTaskEntity task : tasks) {
+                RUNNING_TASK_IDS.remove(task.id);
+            }
+        }
+    }
+
+    private void awaitJobs(List<CommentPipeline.Job> jobs) {
+        try {
+            for (CommentPipeline.Job job : jobs) {
+                job.await();
+            }
+        } catch (InterruptedException e) {
+            // Leave the tasks pending, they resume from their checkpoints
+            for (CommentPipeline.Job job : jobs) {
+                job.cancel();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Persists the progress of one task while the pipeline runs it. Each search
+     * page is stored together with the search cursor in one transaction, and
+     * posting progress is checkpointed in batches of {@link #CHECKPOINT_INTERVAL}.
+     */
+    private final class TaskProgress extends CommentPipeline.Listener {
+        private final CommentTaskEntity task;
+        private final BatchListener batchListener;
+
+        // Progress not yet written: videoId to comments posted, negative once completed
+        private final Map<String, Integer> pendingProgress = new HashMap<>();
+        // Rejected videos not yet written as done, guarded by pendingProgress
+        private final List<String> pendingRejections = new ArrayList<>();
+        private int postedSinceCheckpoint;
+
+        TaskProgress(CommentTaskEntity task, BatchListener batchListener) {
+            this.task = task;
+            this.batchListener = batchListener;
+        }
+
+        @Override
+        public void onPageFetched(CommentPipeline.Job job, VideoSearchPage page, String nextCursor) {
+            final List<CommentWorkItemEntity> items = new ArrayList<>(page.getVideoIds().length);
+            for (String videoId : page.getVideoIds()) {
+                items.add(CommentWorkItemEntity.create(task.id, videoId));
+            }
+            task.searchCursor = nextCursor;
+            task.searchCompleted = nextCursor == null;
+
+            // Store the page and the search checkpoint in a single transaction
+            database.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    taskDao.insertWorkItems(items);
+                    taskDao.updateTask(task);
+                }
+            });
+        }
+
+        @Override
+        public void onCommentPosted(CommentPipeline.Job job, String videoId, int commentIndex) {
+            CommentLog.d(TAG, "Posting comment on {}: {}", videoId, task.commentContent);
+            boolean checkpointed = false;
+            synchronized (pendingProgress) {
+                pendingProgress.put(videoId, commentIndex + 1);
+                if (++postedSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                    checkpoint();
+                    checkpointed = true;
+                }
+            }
+            if (checkpointed && batchListener != null) {
+                batchListener.onKeywordProgress(job);
+            }
+        }
+
+        @Override
+        public void onItemCompleted(CommentPipeline.Job job, String videoId) {
+            synchronized (pendingProgress) {
+                pendingProgress.put(videoId, -task.commentCount);
+            }
+        }
+
+        @Override
+        public void onItemFailed(CommentPipeline.Job job, String videoId, RuntimeException error) {
+            CommentLog.w(TAG, "Task failed on {}: {}", videoId != null ? videoId : "search", error);
+            // A rejected video is in the dead letters already, a resume must not post on it again
+            if (videoId != null && !RetryPolicy.isRetryable(error)) {
+                synchronized (pendingProgress) {
+                    pendingRejections.add(videoId);
+                }
+            }
+        }
+
+        @Override
+        public void onJobFinished(CommentPipeline.Job job) {
+            synchronized (pendingProgress) {
+                checkpoint();
+            }
+            // Videos that failed with retryable errors stay pending and are retried by the next resume
+            if (!job.isCancelled() && job.getFailedItems() == job.getRejectedItems()) {
+                task.state = CommentTaskEntity.STATE_COMPLETED;
+                // Its work items are only needed to resume, keep the table from growing on a 24/7 device
+                database.runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        taskDao.updateTask(task);
+                        taskDao.deleteWorkItems(task.id);
+                    }
+                });
+            }
+            CommentLog.d(TAG, "Comment task executed, comments posted: {}", job.getCommentsPosted());
+            if (batchListener != null) {
+                batchListener.onKeywordProgress(job);
+            }
+        }
+
+        // Writes the progress of all modified work items in one transaction, caller holds the lock
+        private void checkpoint() {
+            postedSinceCheckpoint = 0;
+            if (pendingProgress.isEmpty() && pendingRejections.isEmpty()) {
+                return;
+            }
+            final List<Map.Entry<String, Integer>> updates = new ArrayList<>(pendingProgress.entrySet());
+            final List<String> rejections = new ArrayList<>(pendingRejections);
+            pendingProgress.clear();
+            pendingRejections.clear();
+            database.runInTransaction(new Runnable() {
+                @Override
+                public void run() {
+                    for (Map.Entry<String, Integer> update : updates) {
+                        int posted = update.getValue();
+                        taskDao.updateWorkItemProgress(task.id, update.getKey(), Math.abs(posted), posted < 0);
+                    }
+                    // After the progress, which would clear the flag again
+                    for (String videoId : rejections) {
+                        taskDao.completeWorkItem(task.id, videoId);
+                    }
+                }
+            });
         }
     }
 
     /**
      * Manages the state of the comment tasks, ensuring appropriate execution flow.
-     * This method can be expanded to include additional state checks or logging.
+     * Reports the pending tasks and the pipeline metrics, and writes a metrics
+     * snapshot to the app's files directory. Must not be called on the main thread.
+     *
+     * @return The metrics snapshot that was reported.
      */
-    public void manageTaskState() {
-        // Implement task state management logic here
-        // For example, check if tasks are completed, handle errors, etc.
-        Log.d(TAG, "Managing task state...");
+    public MetricsSnapshot manageTaskState() {
+        MetricsSnapshot snapshot = MetricsRegistry.getShared().snapshot();
+        CommentLog.i(TAG, "Managing task state: {}, pending tasks: {}", snapshot, taskDao.countPendingTasks());
+
+        try {
+            snapshot.writeTo(new File(filesDir, METRICS_FILE_NAME));
+        } catch (IOException e) {
+            CommentLog.w(TAG, "Could not write metrics to {}: {}", filesDir, e);
+        }
+        return snapshot;
     }
 }
 ```
@@ -115,11 +664,19 @@ public class CommentTaskManager {
   
 - **Parameter Configuration**: The `configureCommentSettings` method allows for dynamic setup of task parameters, such as the comment content, count, and the keyword for video search. This separation of configuration from execution enhances maintainability and flexibility.
 
-- **Task Execution**: The `executeCommentTask` method orchestrates the overall task by first searching for videos that match the specified keyword, then iterating through the results to post comments as configured. This method would integrate with MadHub’s automated operations, ensuring it can run 24/7 without user intervention.
+- **Task Execution**: The `executeCommentTask` method persists the task and submits it to a `CommentPipeline`, where the search, filter and post stages run concurrently with bounded queues between them, so slow network calls overlap instead of adding up. Comments are paced by the shared `ActionScheduler`, a token bucket set to the configured actions-per-window limit, and concurrent tasks take turns in the post stage by priority. A failing video is retried with backoff and then moved to the dead-letter table without stopping the rest of the task; unless its error was non-retryable it also stays pending, so the next resume tries it again. This method would integrate with MadHub’s automated operations, ensuring it can run 24/7 without user intervention.
+
+- **Batch Execution**: `executeCommentBatch` takes many `BatchEntry` keyword/comment configurations at once. The tasks are stored in one transaction under a shared batch id, all keywords are searched concurrently through the same pipeline, videos found by several keywords are posted on only once, and a `BatchListener` receives the progress of each keyword. Interrupted batches resume with their deduplication intact.
+
+- **Bulk Import**: `importTasks` reads JSON lines or CSV job definitions through `JobFileParser`, one record at a time, skips invalid records and stores the rest as pending tasks in transactions of 500 rows.
+
+- **Persistence**: Tasks and per-video work items are stored in Room (`CommentDatabase`). Search results are streamed page by page through a `VideoSearchCursor`; each page is written in one transaction together with the search cursor and posting progress is checkpointed every few comments, so `resumePendingTasks` continues an interrupted task from its last checkpoint. Work items are deleted once their task completes, and completed tasks after a week. A video rejected with a non-retryable error is dead-lettered and marked done, so the task still completes and a resume only retries videos that failed with retryable errors. It reads the pending tasks in small pages and skips tasks already running in the process, so a large imported queue is never held in memory and overlapping resumes never post twice. Given an executor, the resume runs each page as its own job, so a long backlog shares the workers with other jobs.
+
+- **Testability**: The manager reaches the database only through `CommentTaskDao` and the `Transactions` interface, which `CommentDatabase` implements, and writes its metrics to the directory it is given. The app creates it with `CommentPipelineFactory.createTaskManager`; the soak test drives the same class on a plain JVM with an in-memory queue.
 
-- **Log Management**: Each method includes logging statements to monitor the execution flow and debug if necessary. This is particularly important for tracking automation tasks and identifying any issues that may arise during operations.
+- **Log Management**: Every message goes through `CommentLog`, which costs nothing when debug logging is off and otherwise writes records to a rotating file from a background thread. Each method includes logging statements to monitor the execution flow and debug if necessary. This is particularly important for tracking automation tasks and identifying any issues that may arise during operations.
 
-- **API Interaction**: Placeholder methods such as `searchVideosByKeyword` and `postCommentsOnVideo` demonstrate where actual API interactions would occur. In a complete implementation, these methods would include the logic to communicate with TikTok's API or relevant services, adhering to best practices for API usage and compliance with platform guidelines.
+- **API Interaction**: Searching and posting go through the shared `CommentEngine`, which talks to TikTok's API or relevant services through its `VideoSearchTransport` and `CommentTransport`, adhering to best practices for API usage and compliance with platform guidelines.
 
 ### Best Practices:
 
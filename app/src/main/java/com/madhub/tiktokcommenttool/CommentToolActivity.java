@@ -5,8 +5,13 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+
+import java.util.List;
 
 /**
  * This class is designed to address the challenge of engaging with TikTok content 
@@ -15,12 +20,22 @@ import androidx.appcompat.app.AppCompatActivity;
  * 
  * The CommentToolActivity utilizes MadHub's TikTok Comment Video feature, 
  * which automates the process of commenting on videos based on specified keywords.
+ * <p>
+ * The work runs in {@link CommentWorkerService}, started through
+ * {@link CommentToolViewModel}; the activity only renders the throttled
+ * progress the ViewModel publishes. A rotation creates
+ * a new activity that observes the same, still running jobs.
+ * </p>
  */
 public class CommentToolActivity extends AppCompatActivity {
 
     private EditText keywordInput; // Input field for the keyword to search videos
     private EditText commentInput;  // Input field for the comment to post
     private Button submitButton;     // Button to trigger the comment posting action
+    private TextView progressText;   // Progress of the running jobs
+
+    // Survives rotation together with the jobs it runs
+    private CommentToolViewModel viewModel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -31,6 +46,16 @@ public class CommentToolActivity extends AppCompatActivity {
         keywordInput = findViewById(R.id.keywordInput);
         commentInput = findViewById(R.id.commentInput);
         submitButton = findViewById(R.id.submitButton);
+        progressText = findViewById(R.id.progressText);
+
+        // Returns the existing ViewModel after a rotation, so running jobs are picked up again
+        viewModel = new ViewModelProvider(this).get(CommentToolViewModel.class);
+        viewModel.getProgress().observe(this, new Observer<List<CommentToolViewModel.Progress>>() {
+            @Override
+            public void onChanged(List<CommentToolViewModel.Progress> progress) {
+                renderProgress(progress);
+            }
+        });
 
         // Set an OnClickListener for the submit button
         submitButton.setOnClickListener(new View.OnClickListener() {
@@ -58,38 +83,54 @@ public class CommentToolActivity extends AppCompatActivity {
     /**
      * This method automates the process of posting comments on videos found through 
      * the specified keyword. It utilizes MadHub's TikTok Comment Video feature.
+     * The job is handed to the ViewModel and runs off the main thread.
      * 
      * @param keyword The keyword used to search videos on TikTok.
      * @param comment The comment that will be posted on the found videos.
      */
     private void postCommentOnVideos(String keyword, String comment) {
-        // Here, we simulate the process of utilizing MadHub to search for videos based 
-        // on the keyword and post comments accordingly.
-
-        // Example pseudocode to illustrate the use of MadHub's capabilities
-        /* 
-        MadHub.TikTokCommentVideo commentVideoTool = new MadHub.TikTokCommentVideo();
-        commentVideoTool.setKeyword(keyword); // Setting the keyword for video search
-        commentVideoTool.setComment(comment);  // Configuring the comment to post
-        commentVideoTool.setCommentCount(5);   // Setting how many comments to post per video
-
-        // Execute the commenting process
-        commentVideoTool.execute();
-        */
-
-        // Since MadHub operates with a graphical interface, no extensive coding is needed 
-        // beyond this point. Users can configure parameters through the interface, making 
-        // it user-friendly and efficient for 24/7 automated operations.
+        // Searching and posting run in the background pipeline, progress comes back
+        // through the ViewModel at a limited rate.
+        viewModel.startJob(keyword, comment);
 
         // Display a confirmation message to the user
         Toast.makeText(this, "Comments will be posted on videos related to: " + keyword, 
                        Toast.LENGTH_LONG).show();
     }
+
+    // Called on the main thread with the latest progress, at most a few times per second
+    private void renderProgress(List<CommentToolViewModel.Progress> progress) {
+        StringBuilder text = new StringBuilder();
+        for (CommentToolViewModel.Progress job : progress) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(job.keyword)
+                    .append(": ")
+                    .append(job.commentsPosted)
+                    .append(" comments on ")
+                    .append(job.videosFound)
+                    .append(" videos");
+            if (job.skippedVideos > 0 || job.failedVideos > 0) {
+                text.append(" (")
+                        .append(job.skippedVideos)
+                        .append(" skipped, ")
+                        .append(job.failedVideos)
+                        .append(" failed)");
+            }
+            if (job.finished) {
+                text.append(", done");
+            }
+        }
+        progressText.setText(text);
+    }
 }
 ```
 
 ### Explanation of the Code:
 - The `CommentToolActivity` class is responsible for managing the user interface where users can input keywords and comments.
 - It identifies the problem of how to efficiently engage with TikTok videos and provides a solution by integrating MadHub's functionality for posting comments based on keyword search.
-- The `postCommentOnVideos` method outlines how to set up and use MadHub’s TikTok commenting feature, even though the actual implementation details are pseudocode, illustrating the intended use of the tool.
-- The activity utilizes standard Android components like `EditText` and `Button` for user interactions, and incorporates feedback through `Toast` messages to confirm actions to the user.
+- The `postCommentOnVideos` method hands the job to `CommentToolViewModel`, which submits it to the pipeline of `CommentWorkerService`, so the UI thread never searches or posts itself and the job keeps running after the screen is closed.
+- Progress is published through `LiveData` at most every 250 ms, with intermediate updates conflated, so the screen stays smooth even when thousands of videos are processed per minute.
+- The ViewModel outlives rotations: the recreated activity observes the jobs that are already running instead of starting them again.
+- The activity utilizes standard Android components like `EditText` and `Button` for user interactions, shows the running jobs in a `TextView`, and incorporates feedback through `Toast` messages to confirm actions to the user.
@@ -0,0 +1,201 @@
+package com.madhub.tiktokcommenttool;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CommentToolViewModel hands the comment jobs started from {@link CommentToolActivity}
+ * to the background engine and streams their progress back to the screen.
+ * <p>
+ * Jobs run on the pipeline of {@link CommentWorkerService}, not on the screen:
+ * after a rotation the new activity observes the same progress instead of
+ * starting the jobs again, and once the screen is finished for good the jobs
+ * keep running while the ViewModel only stops listening to them.
+ * </p>
+ * <p>
+ * Pipeline workers may report thousands of events per minute. They only flag
+ * the progress as changed; the main thread reads the job counters at most once
+ * per {@link #PROGRESS_INTERVAL_MILLIS}, so intermediate values are conflated
+ * and the UI gets a bounded number of updates whatever the load.
+ * </p>
+ */
+public class CommentToolViewModel extends AndroidViewModel {
+
+    private static final String TAG = "CommentToolViewModel";
+
+    // Minimum time between two progress updates delivered to the UI
+    private static final long PROGRESS_INTERVAL_MILLIS = 250L;
+
+    // Number of comments posted on every video found from the screen
+    private static final int COMMENTS_PER_VIDEO = 5;
+
+    // Finished jobs still shown, older ones are dropped
+    private static final int MAX_FINISHED_JOBS = 10;
+
+    /**
+     * Progress of one job at the time it was published. Immutable.
+     */
+    public static final class Progress {
+        public final String keyword;
+        public final int videosFound;
+        public final int commentsPosted;
+        public final int skippedVideos;
+        public final int failedVideos;
+        public final boolean finished;
+
+        Progress(CommentPipeline.Job job) {
+            this.keyword = job.getKeyword();
+            this.videosFound = job.getVideosFound();
+            this.commentsPosted = job.getCommentsPosted();
+            this.skippedVideos = job.getSkippedItems();
+            this.failedVideos = job.getFailedItems();
+            this.finished = job.isFinished();
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<List<Progress>> progress = new MutableLiveData<>();
+
+    // Running and recently finished jobs started from the screen, only touched on the main thread
+    private final List<CommentPipeline.Job> jobs = new ArrayList<>();
+
+    // Set while a publication is pending, so bursts of events collapse into one
+    private final AtomicBoolean publishScheduled = new AtomicBoolean();
+    private volatile long lastPublishMillis;
+    private volatile boolean cleared;
+
+    private final Runnable publishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            publishScheduled.set(false);
+            publish();
+        }
+    };
+
+    // Shared by every job, detached once the screen is gone so running jobs do not keep the ViewModel
+    private final ProgressForwarder changeListener = new ProgressForwarder(this);
+
+    /**
+     * Forwards pipeline events, called on pipeline worker threads.
+     */
+    private static final class ProgressForwarder extends CommentPipeline.Listener {
+        private volatile CommentToolViewModel viewModel;
+
+        ProgressForwarder(CommentToolViewModel viewModel) {
+            this.viewModel = viewModel;
+        }
+
+        void detach() {
+            viewModel = null;
+        }
+
+        @Override
+        public void onPageFetched(CommentPipeline.Job job, VideoSearchPage page, String nextCursor) {
+            changed();
+        }
+
+        @Override
+        public void onCommentPosted(CommentPipeline.Job job, String videoId, int commentIndex) {
+            changed();
+        }
+
+        @Override
+        public void onItemFailed(CommentPipeline.Job job, String videoId, RuntimeException error) {
+            CommentLog.w(TAG, "Posting failed on {}: {}", videoId, error);
+            changed();
+        }
+
+        @Override
+        public void onJobFinished(CommentPipeline.Job job) {
+            changed();
+        }
+
+        private void changed() {
+            CommentToolViewModel target = viewModel;
+            if (target != null) {
+                target.onProgressChanged();
+            }
+        }
+    }
+
+    public CommentToolViewModel(@NonNull Application application) {
+        super(application);
+        CommentLog.start(new File(application.getFilesDir(), "logs"));
+    }
+
+    /**
+     * @return The progress of every job started from the screen, updated at a limited rate.
+     */
+    public LiveData<List<Progress>> getProgress() {
+        return progress;
+    }
+
+    /**
+     * Starts a job in the background service and returns immediately. If the
+     * service cannot be reached the job is shown as finished with a failed video.
+     *
+     * @param keyword The keyword used to search videos.
+     * @param comment The comment posted on the found videos.
+     * @throws IllegalArgumentException If the keyword or comment is empty.
+     */
+    @MainThread
+    public void startJob(String keyword, String comment) {
+        CommentPipeline.Job job = new CommentPipeline.Job(keyword, null, comment,
+                COMMENTS_PER_VIDEO, changeListener);
+        CommentWorkerService.submit(getApplication(), job);
+        jobs.add(job);
+        publish();
+    }
+
+    // Any thread: schedules one publication, no earlier than the rate limit allows
+    private void onProgressChanged() {
+        if (!cleared && publishScheduled.compareAndSet(false, true)) {
+            long delay = lastPublishMillis + PROGRESS_INTERVAL_MILLIS - SystemClock.uptimeMillis();
+            mainHandler.postDelayed(publishRunnable, Math.max(0, delay));
+        }
+    }
+
+    @MainThread
+    private void publish() {
+        lastPublishMillis = SystemClock.uptimeMillis();
+        List<Progress> snapshot = new ArrayList<>(jobs.size());
+        for (CommentPipeline.Job job : jobs) {
+            snapshot.add(new Progress(job));
+        }
+        progress.setValue(snapshot);
+        dropFinishedJobs();
+    }
+
+    // Keeps the newest finished jobs for display, so the list does not grow with every submission
+    @MainThread
+    private void dropFinishedJobs() {
+        int finished = 0;
+        for (int i = jobs.size() - 1; i >= 0; i--) {
+            if (jobs.get(i).isFinished() && ++finished > MAX_FINISHED_JOBS) {
+                jobs.remove(i);
+            }
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        // The screen is gone for good, not just rotated; the jobs keep running in the service
+        cleared = true;
+        changeListener.detach();
+        mainHandler.removeCallbacks(publishRunnable);
+        jobs.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.List;
+
+/**
+ * CommentTransport posts comments and reads comment sections.
+ * Implementations perform the actual I/O, see {@link FakeCommentTransport} for
+ * an in-process implementation.
+ */
+public interface CommentTransport {
+
+    /**
+     * Posts a single comment.
+     *
+     * @param videoId The video to comment on.
+     * @param commentText The text of the comment.
+     * @throws TransportException If the comment could not be posted.
+     */
+    void postComment(String videoId, String commentText);
+
+    /**
+     * Reads the authors of a video's comment section.
+     *
+     * @param videoId The video whose comment section is read.
+     * @param limit The maximum number of authors to return.
+     * @return Up to {@code limit} usernames.
+     * @throws TransportException If the comment section could not be read.
+     */
+    List<String> fetchCommentAuthors(String videoId, int limit);
+}
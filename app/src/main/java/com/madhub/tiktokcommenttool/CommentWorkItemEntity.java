@@ -0,0 +1,42 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * CommentWorkItemEntity tracks the posting progress for a single video found by a
+ * {@link CommentTaskEntity}. The {@code commentsPosted} counter is the checkpoint a
+ * resumed task continues from.
+ */
+@Entity(tableName = "comment_work_items",
+        foreignKeys = @ForeignKey(entity = CommentTaskEntity.class,
+                parentColumns = "id",
+                childColumns = "taskId",
+                onDelete = ForeignKey.CASCADE),
+        indices = @Index(value = {"taskId", "videoId"}, unique = true))
+public class CommentWorkItemEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    public long taskId;
+    public String videoId;
+    public int commentsPosted;
+    public boolean completed;
+
+    /**
+     * Creates a new, not yet started work item.
+     *
+     * @param taskId The owning task.
+     * @param videoId The video to post comments on.
+     * @return The work item ready to be inserted.
+     */
+    public static CommentWorkItemEntity create(long taskId, String videoId) {
+        CommentWorkItemEntity item = new CommentWorkItemEntity();
+        item.taskId = taskId;
+        item.videoId = videoId;
+        return item;
+    }
+}
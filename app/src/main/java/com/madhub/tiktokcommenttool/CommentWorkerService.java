@@ -3,10 +3,24 @@ package com.madhub.tiktokcommenttool;
 
 // Import necessary libraries
 import android.app.Service;
+import android.content.ComponentName;
+import android.content.Context;
 import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Binder;
+import android.net.Uri;
 import android.os.IBinder;
 import android.util.Log;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 // CommentWorkerService is an Android Service that automates commenting on TikTok videos.
 // This service will help users engage with content and improve account visibility through automated commenting.
 // In this scenario, we will show how to configure automatic comments on TikTok videos based on specific keywords.
@@ -16,79 +30,406 @@ public class CommentWorkerService extends Service {
     // Constants for logging
     private static final String TAG = "CommentWorkerService";
 
+    // Default limits for the shared task executor
+    private static final int DEFAULT_MAX_PARALLEL_TASKS = 2;
+    private static final int MAX_QUEUED_TASKS = 64;
+
+    private static final String METRICS_FILE_NAME = "metrics.json";
+
+    /**
+     * Imports the jobs of the file or content URI in the intent data instead of
+     * reading a single job from the extras. The optional {@link #EXTRA_FORMAT}
+     * extra selects the format, otherwise a {@code .csv} path or the
+     * {@code text/csv} type means CSV and anything else JSON lines.
+     */
+    public static final String ACTION_IMPORT_JOBS = "com.madhub.tiktokcommenttool.action.IMPORT_JOBS";
+    public static final String EXTRA_FORMAT = "format";
+
+    /**
+     * Optional extras of any start intent that change the limit of the shared
+     * {@link ActionScheduler}, see {@link #setActionLimit(int, long)}.
+     */
+    public static final String EXTRA_ACTIONS_PER_WINDOW = "actionsPerWindow";
+    public static final String EXTRA_WINDOW_MILLIS = "windowMillis";
+    private static final long DEFAULT_WINDOW_MILLIS = 60000L;
+
+    // Parallelism cap applied the next time the service is created
+    private static volatile int maxParallelTasks = DEFAULT_MAX_PARALLEL_TASKS;
+
+    // Shared, bounded executor that runs every started job
+    private CommentTaskExecutor taskExecutor;
+
+    // Search, filter and post stages shared by every job, scoped to the service lifetime
+    private CommentPipeline pipeline;
+
+    // Set until the first start after creation has queued the resume of persisted tasks
+    private boolean resumeOnStart;
+
+    // Binder handed to clients in this process
+    private final IBinder binder = new WorkerBinder();
+
+    /**
+     * Local binder running jobs and exposing the pipeline metrics to components in this process.
+     */
+    public class WorkerBinder extends Binder {
+
+        /**
+         * Queues a job on the service's pipeline. The client keeps the service
+         * bound until the job has finished, see {@link #submit(Context, CommentPipeline.Job)}.
+         *
+         * @param job The job to run, not yet submitted anywhere.
+         * @param onDone Runs on a worker thread once the job has finished or could not be queued.
+         */
+        public void runJob(CommentPipeline.Job job, Runnable onDone) {
+            CommentWorkerService.this.runJob(job, onDone);
+        }
+
+        /**
+         * @return The current counters and latency histograms.
+         */
+        public MetricsSnapshot getMetricsSnapshot() {
+            return MetricsRegistry.getShared().snapshot();
+        }
+
+        /**
+         * Writes the current metrics to the app's files directory. Must not be called on the main thread.
+         *
+         * @return The written file.
+         * @throws IOException If the file could not be written.
+         */
+        public File dumpMetrics() throws IOException {
+            return CommentWorkerService.this.dumpMetrics();
+        }
+    }
+
+    /**
+     * Sets how many comment jobs may run at the same time.
+     * The new limit is picked up the next time the service is created.
+     *
+     * @param parallelism Maximum number of concurrent jobs, must be positive.
+     */
+    public static void setMaxParallelTasks(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        maxParallelTasks = parallelism;
+    }
+
+    /**
+     * Sets how many comments all jobs together may post per time window. Takes
+     * effect immediately, also for running jobs.
+     *
+     * @param actionsPerWindow Maximum number of comments per window, must be positive.
+     * @param windowMillis Length of the window in milliseconds, must be positive.
+     */
+    public static void setActionLimit(int actionsPerWindow, long windowMillis) {
+        ActionScheduler.getShared().setLimit(actionsPerWindow, windowMillis);
+    }
+
+    /**
+     * Runs a job on the service's pipeline, so it keeps running in the background
+     * after the calling screen is gone. The job can be observed through its
+     * listener and counters and be cancelled by the caller. Jobs do not survive
+     * the process; use persisted tasks from {@link CommentTaskManager} for that.
+     * <p>
+     * The service is bound from the application context until the job has
+     * finished, which unlike a background start is allowed on Android 8 and
+     * later. Never throws for a service that cannot be reached: the job then
+     * finishes right away with one failed item, as if its search had failed.
+     * </p>
+     *
+     * @param context Any context of this process.
+     * @param job The job to run, not yet submitted anywhere.
+     */
+    public static void submit(Context context, CommentPipeline.Job job) {
+        Context appContext = context.getApplicationContext();
+        JobConnection connection = new JobConnection(appContext, job);
+        boolean bound;
+        try {
+            bound = appContext.bindService(new Intent(appContext, CommentWorkerService.class),
+                    connection, Context.BIND_AUTO_CREATE);
+        } catch (SecurityException e) {
+            bound = false;
+        }
+        if (!bound) {
+            connection.fail(new IllegalStateException("CommentWorkerService could not be bound"));
+        }
+    }
+
+    /**
+     * Keeps the service bound while one job handed over by {@link #submit(Context, CommentPipeline.Job)} runs.
+     */
+    private static final class JobConnection implements ServiceConnection {
+        private final Context context;
+        private final CommentPipeline.Job job;
+        // Set once the job was handed over or failed
+        private volatile boolean handled;
+
+        JobConnection(Context context, CommentPipeline.Job job) {
+            this.context = context;
+            this.job = job;
+        }
+
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            if (handled) {
+                // Reconnected after the service was lost, the job is already over
+                return;
+            }
+            handled = true;
+            ((WorkerBinder) service).runJob(job, new Runnable() {
+                @Override
+                public void run() {
+                    unbind();
+                }
+            });
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // Only happens when the service's process dies, which takes the job with it
+            job.cancel();
+        }
+
+        // The service could not be reached, the job fails instead of waiting for good
+        void fail(RuntimeException error) {
+            handled = true;
+            unbind();
+            CommentLog.e(TAG, "Job {} not started: {}", job.getKeyword(), error);
+            job.fail(error);
+        }
+
+        private void unbind() {
+            try {
+                context.unbindService(this);
+            } catch (IllegalArgumentException e) {
+                // Was never bound
+            }
+        }
+    }
+
+    // This method is called once when the service is created
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        CommentLog.start(new File(getFilesDir(), "logs"));
+        SearchResultCache.getShared().setDiskTier(new RoomSearchCacheTier(CommentDatabase.getInstance(this)));
+        // Skips processed videos, paces comments and retries failures per video
+        pipeline = CommentPipelineFactory.create(this);
+        taskExecutor = new CommentTaskExecutor(maxParallelTasks, MAX_QUEUED_TASKS,
+                new CommentTaskExecutor.IdleListener() {
+                    @Override
+                    public void onIdle(int lastStartId) {
+                        // Keep the numbers of the finished jobs on disk
+                        try {
+                            dumpMetrics();
+                        } catch (IOException e) {
+                            Log.w(TAG, "Could not write metrics: " + e.getMessage());
+                        }
+                        // Only stops if no newer start arrived in the meantime
+                        stopSelfResult(lastStartId);
+                    }
+                });
+        resumeOnStart = true;
+    }
+
     // This method is called when the service is started
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         // Log the service start
         Log.d(TAG, "CommentWorkerService started");
 
+        // Tasks a killed process left in the database continue with the first start
+        if (resumeOnStart) {
+            resumeOnStart = false;
+            resumePendingTasks(startId);
+        }
+
+        // A sticky restart after the process was killed carries no intent, the resume above picks up its work
+        if (intent == null) {
+            Log.d(TAG, "Restarted without an intent, resuming pending tasks");
+            taskExecutor.skip(startId);
+            return START_STICKY;
+        }
+
+        applyActionLimit(intent);
+
+        // Many jobs at once: read them from a file rather than one intent per job
+        if (ACTION_IMPORT_JOBS.equals(intent.getAction())) {
+            return importJobs(intent, startId);
+        }
         // Step-by-step process begins
         // Workflow step 1: Retrieve configuration parameters
-        String keyword = intent.getStringExtra("keyword"); // Keyword for searching videos
-        String commentContent = intent.getStringExtra("comment"); // Content for commenting
-        int commentCount = intent.getIntExtra("commentCount", 1); // Number of comments to post
+        final String keyword = intent.getStringExtra("keyword"); // Keyword for searching videos
+        final String commentContent = intent.getStringExtra("comment"); // Content for commenting
+        final int commentCount = intent.getIntExtra("commentCount", 1); // Number of comments to post
+        final int priority = intent.getIntExtra("priority", 0); // Higher priority jobs are posted first
 
         // Validate input parameters
-        if (keyword == null || commentContent == null || commentCount <= 0) {
+        try {
+            CommentEngine.validateJob(keyword, commentContent, commentCount);
+        } catch (IllegalArgumentException e) {
             Log.e(TAG, "Invalid parameters");
-            stopSelf(); // Stop the service if parameters are invalid
+            taskExecutor.skip(startId); // Stop the service unless other jobs are still running
             return START_NOT_STICKY;
         }
 
-        // Workflow step 2: Start the commenting process
-        new Thread(() -> {
-            try {
-                // Practical use case: Searching videos based on the keyword
-                // This simulates the process of searching for TikTok videos that match the keyword.
-                String[] videoIds = searchVideos(keyword);
-                
-                // Workflow step 3: Post comments on the found videos
-                for (String videoId : videoIds) {
-                    for (int i = 0; i < commentCount; i++) {
-                        postComment(videoId, commentContent);
-                    }
+        // Workflow step 2: Queue the commenting process on the shared executor
+        boolean queued = taskExecutor.submit(startId, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Practical use case: Searching videos based on the keyword
+                    // Workflow step 3: Post comments on the found videos
+                    // The pipeline streams result pages, so posting starts with the first page
+                    // and overlaps with the search of the following pages.
+                    CommentPipeline.Job job = new CommentPipeline.Job(
+                            keyword, null, commentContent, commentCount, new CommentPipeline.Listener() {
+                                @Override
+                                public void onCommentPosted(CommentPipeline.Job job, String videoId, int commentIndex) {
+                                    CommentLog.d(TAG, "Posting comment: '{}' on video ID: {}", commentContent, videoId);
+                                }
+                            });
+                    job.setPriority(priority);
+                    pipeline.submit(job).await();
+
+                    // Log completion
+                    Log.d(TAG, "Comments posted successfully");
+                } catch (InterruptedException e) {
+                    Log.w(TAG, "Commenting process interrupted");
+                } catch (Exception e) {
+                    Log.e(TAG, "Error during commenting process: " + e.getMessage());
                 }
+            }
+        });
+
+        // Redeliver the intent if the process dies before the job has finished
+        return queued ? START_REDELIVER_INTENT : START_NOT_STICKY;
+    }
+
+    // Imports and then runs the jobs of a file, both on the executor
+    private int importJobs(Intent intent, int startId) {
+        final Uri uri = intent.getData();
+        if (uri == null) {
+            Log.e(TAG, "Import requested without a file");
+            taskExecutor.skip(startId);
+            return START_NOT_STICKY;
+        }
+        final int format = importFormat(intent, uri);
 
-                // Log completion
-                Log.d(TAG, "Comments posted successfully");
-            } catch (Exception e) {
-                Log.e(TAG, "Error during commenting process: " + e.getMessage());
-            } finally {
-                // Stop the service after completing the task
-                stopSelf();
+        boolean queued = taskExecutor.submit(startId, new Runnable() {
+            @Override
+            public void run() {
+                CommentTaskManager manager = CommentPipelineFactory.createTaskManager(CommentWorkerService.this, pipeline);
+                try {
+                    InputStream in = getContentResolver().openInputStream(uri);
+                    if (in == null) {
+                        throw new IOException("Cannot open " + uri);
+                    }
+                    try {
+                        manager.importTasks(new BufferedReader(new InputStreamReader(in, "UTF-8")), format);
+                    } finally {
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    // Batches written before the error stay pending and run below
+                    Log.e(TAG, "Importing jobs failed: " + e.getMessage());
+                }
+                // Runs in pages and skips tasks a previous import is still running
+                manager.resumePendingTasks(executorFor(startId));
             }
-        }).start();
+        });
+        if (!queued) {
+            Log.e(TAG, "Import of " + uri + " rejected, the task queue is full");
+        }
 
-        // Return START_STICKY to keep the service running
+        // Not redelivered: imported tasks are already stored, a second import would duplicate them.
+        // Sticky instead, so a killed import restarts without an intent and resumes the stored tasks.
         return START_STICKY;
     }
 
-    // This method simulates searching for TikTok videos based on the provided keyword.
-    private String[] searchVideos(String keyword) {
-        // Here you would implement the logic to search TikTok videos for the given keyword.
-        // This could involve API calls or scraping techniques (keeping in mind compliance with TikTok's terms).
-        // For this example, we'll simulate returning a list of video IDs.
-        Log.d(TAG, "Searching for videos with keyword: " + keyword);
-        return new String[]{"video1", "video2", "video3"}; // Simulate found video IDs
+    // Runs the persisted tasks that are still pending on the executor, each page as its own job
+    private void resumePendingTasks(int startId) {
+        CommentPipelineFactory.createTaskManager(this, pipeline).resumePendingTasks(executorFor(startId));
+    }
+
+    // Queues work for a start on the shared executor, so the service stays up until it is done
+    private Executor executorFor(final int startId) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (!taskExecutor.submit(startId, command)) {
+                    throw new RejectedExecutionException("The task queue is full");
+                }
+            }
+        };
+    }
+
+    // Runs a job handed over by a bound client until it is done, on the executor
+    private void runJob(final CommentPipeline.Job job, final Runnable onDone) {
+        // Not a start, the client's binding keeps the service alive while the job runs
+        boolean queued = taskExecutor.submit(0, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    pipeline.submit(job).await();
+                } catch (InterruptedException e) {
+                    job.cancel();
+                    Log.w(TAG, "Job interrupted: " + job.getKeyword());
+                } catch (IllegalStateException e) {
+                    // The service is being destroyed
+                    job.fail(e);
+                } finally {
+                    onDone.run();
+                }
+            }
+        });
+        if (!queued) {
+            job.fail(new IllegalStateException("The task queue is full"));
+            onDone.run();
+        }
+    }
+
+    // Applies the optional action limit extras to the shared scheduler
+    private void applyActionLimit(Intent intent) {
+        int actionsPerWindow = intent.getIntExtra(EXTRA_ACTIONS_PER_WINDOW, 0);
+        if (actionsPerWindow > 0) {
+            setActionLimit(actionsPerWindow, intent.getLongExtra(EXTRA_WINDOW_MILLIS, DEFAULT_WINDOW_MILLIS));
+            Log.d(TAG, "Action limit set to " + actionsPerWindow + " per window");
+        }
+    }
+
+    private int importFormat(Intent intent, Uri uri) {
+        String format = intent.getStringExtra(EXTRA_FORMAT);
+        if (format == null) {
+            String type = getContentResolver().getType(uri);
+            String path = uri.getPath();
+            boolean csv = "text/csv".equals(type) || (path != null && path.toLowerCase(Locale.US).endsWith(".csv"));
+            return csv ? JobFileParser.FORMAT_CSV : JobFileParser.FORMAT_JSON_LINES;
+        }
+        return "csv".equalsIgnoreCase(format) ? JobFileParser.FORMAT_CSV : JobFileParser.FORMAT_JSON_LINES;
     }
 
-    // This method simulates posting a comment to a TikTok video.
-    private void postComment(String videoId, String commentContent) {
-        // Simulate the action of posting a comment to the specified video ID.
-        Log.d(TAG, "Posting comment: '" + commentContent + "' on video ID: " + videoId);
-        // Here you would handle the actual comment posting logic, ensuring to comply with TikTok's boundaries.
+    // Writes a metrics snapshot next to the log files
+    private File dumpMetrics() throws IOException {
+        File file = new File(getFilesDir(), METRICS_FILE_NAME);
+        MetricsRegistry.getShared().snapshot().writeTo(file);
+        return file;
     }
 
-    // This method is called when the service is bound (not used here but required to override).
+    // This method is called when the service is bound, clients can run jobs and read the metrics.
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 
     // This method is called when the service is destroyed.
     @Override
     public void onDestroy() {
         super.onDestroy();
+        // Cancels running jobs, which releases the executor threads waiting on them
+        pipeline.shutdown();
+        taskExecutor.shutdown();
         Log.d(TAG, "CommentWorkerService destroyed");
     }
 }
@@ -96,11 +437,18 @@ public class CommentWorkerService extends Service {
 
 ### Explanation of the Code:
 - **Service Initialization**: The `CommentWorkerService` extends `Service`, serving as the backbone of the TikTok comment automation.
+- **Task Execution**: Jobs run on a shared `CommentTaskExecutor` with a capped number of worker threads and a bounded queue. The service stops itself only once the last started job has finished.
+- **Crash Recovery**: The first start after the service is created, including a sticky restart without an intent after the process was killed, resumes the tasks still pending in the database from their last checkpoint. Each page of pending tasks is queued as its own executor job, so a large backlog shares the workers with newly started jobs instead of holding one of them until the whole backlog is done.
 - **Parameters**: The service retrieves parameters such as keyword, comment content, and comment count via the `Intent`.
 - **Workflow Steps**:
     1. **Parameter Validation**: Ensures that the necessary parameters for commenting are present.
-    2. **Video Search & Comment Posting**: Simulates searching TikTok videos that match the keyword and posts comments accordingly.
-- **Logging**: Throughout the service, logging is performed to track the service's operations and any potential errors.
+    2. **Video Search & Comment Posting**: Submits the job to the service's `CommentPipeline`, whose search, filter and post stages run concurrently with bounded queues in between. The pipeline is shut down with the service. Videos already handled by an earlier job or run are skipped in the filter stage using the shared `ProcessedVideoIndex`.
+    3. **Bulk Import**: An `ACTION_IMPORT_JOBS` intent carries a file or content URI of JSON lines or CSV job definitions instead of extras. The file is streamed and validated record by record on the executor, stored as pending tasks in batched transactions, and then run through the same pipeline, so thousands of jobs need a single service start.
+    4. **Failure Handling**: Each video fails on its own. Failed calls are retried with jittered exponential backoff, a shared circuit breaker pauses posting during an outage, and videos that still fail are kept in the `dead_letters` table while the job moves on.
+    5. **Scheduling**: Concurrent jobs share the post stage by their optional `priority` extra, taking turns within the same priority, and every comment waits for a token of the shared `ActionScheduler`, which paces all jobs to the configured actions-per-window limit. The limit is set with `setActionLimit` or the optional `actionsPerWindow` and `windowMillis` extras of any start intent.
+- **In-Process Jobs**: `submit(Context, Job)` hands a job built elsewhere in the app, such as by the screen or `CommentCommonUtils`, to the service's pipeline, so it is paced, retried and deduplicated like every other job and keeps running after the caller is gone. The job is handed over through a binding from the application context, held until the job has finished, since Android 8 and later refuse to start a service from the background. If the service cannot be bound or its queue is full, the job finishes with one failed item instead of throwing.
+- **Metrics**: Binding to the service returns a `WorkerBinder` that runs jobs and reports the current counters and latency histograms for search, post, collect and queue wait. A snapshot is also written to `metrics.json` whenever the service becomes idle.
+- **Logging**: Per-comment messages use `CommentLog`, which is free when debug logging is off and writes to a rotating file in the background. Throughout the service, logging is performed to track the service's operations and any potential errors.
 - **Compliance with TikTok’s Terms**: While simulating the functionality, it's important to ensure compliance with TikTok's terms for user interaction.
 
 This service can be used as part of a larger application that utilizes MadHub's capabilities for social media management and content engagement, supporting 24/7 automated operations without requiring significant user interaction.
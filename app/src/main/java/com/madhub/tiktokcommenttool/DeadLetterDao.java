@@ -0,0 +1,31 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data access for videos the pipeline gave up on.
+ */
+@Dao
+public interface DeadLetterDao {
+
+    @Insert
+    long insert(DeadLetterEntity deadLetter);
+
+    @Query("SELECT * FROM dead_letters ORDER BY id LIMIT :limit")
+    List<DeadLetterEntity> getOldest(int limit);
+
+    @Query("SELECT COUNT(*) FROM dead_letters")
+    int count();
+
+    @Query("DELETE FROM dead_letters WHERE id = :id")
+    void delete(long id);
+
+    // Deletes everything but the newest rows, nothing while there are fewer
+    @Query("DELETE FROM dead_letters WHERE id <= "
+            + "(SELECT id FROM dead_letters ORDER BY id DESC LIMIT 1 OFFSET :keep)")
+    int deleteAllButNewest(int keep);
+}
@@ -0,0 +1,25 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * DeadLetterEntity is a video the pipeline failed on after all retries, with
+ * enough of its job to post the remaining comments later.
+ */
+@Entity(tableName = "dead_letters")
+public class DeadLetterEntity {
+
+    @PrimaryKey(autoGenerate = true)
+    public long id;
+
+    public String keyword;
+    public String videoId;
+    public String commentContent;
+    public int commentCount;
+    public int commentsPosted;
+
+    // Message of the last failure
+    public String error;
+    public long failedAt;
+}
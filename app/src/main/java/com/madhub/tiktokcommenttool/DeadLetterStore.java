@@ -0,0 +1,18 @@
+package com.madhub.tiktokcommenttool;
+
+/**
+ * Keeps the videos the pipeline gave up on, after all retries, so they can be
+ * inspected or requeued later instead of being lost.
+ */
+public interface DeadLetterStore {
+
+    /**
+     * Called on a pipeline worker thread once a video has failed for good.
+     *
+     * @param job The job the video belongs to.
+     * @param videoId The failed video.
+     * @param commentsPosted Comments posted on the video before it failed.
+     * @param error The last failure.
+     */
+    void add(CommentPipeline.Job job, String videoId, int commentsPosted, RuntimeException error);
+}
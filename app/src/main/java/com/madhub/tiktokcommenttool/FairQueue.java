@@ -0,0 +1,91 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FairQueue orders elements by priority and shares each priority level
+ * round-robin between their owners, e.g. the jobs of a pipeline.
+ * <p>
+ * The head is the oldest element of the first owner in the highest non-empty
+ * level. After it is polled that owner moves to the back of its level, so one
+ * job with many elements cannot starve another job of the same priority. Not
+ * thread-safe, callers hold their own lock.
+ * </p>
+ */
+final class FairQueue<T> {
+
+    // Priority levels, highest first, each holding its owners in round-robin order
+    private final TreeMap<Integer, LinkedHashMap<Object, ArrayDeque<T>>> levels =
+            new TreeMap<>(Collections.<Integer>reverseOrder());
+    private int size;
+
+    void add(Object owner, int priority, T element) {
+        LinkedHashMap<Object, ArrayDeque<T>> owners = levels.get(priority);
+        if (owners == null) {
+            owners = new LinkedHashMap<>();
+            levels.put(priority, owners);
+        }
+        ArrayDeque<T> elements = owners.get(owner);
+        if (elements == null) {
+            elements = new ArrayDeque<>();
+            owners.put(owner, elements);
+        }
+        elements.addLast(element);
+        size++;
+    }
+
+    T peek() {
+        if (size == 0) {
+            return null;
+        }
+        return levels.firstEntry().getValue().values().iterator().next().peekFirst();
+    }
+
+    T poll() {
+        if (size == 0) {
+            return null;
+        }
+        LinkedHashMap<Object, ArrayDeque<T>> owners = levels.firstEntry().getValue();
+        Iterator<Map.Entry<Object, ArrayDeque<T>>> iterator = owners.entrySet().iterator();
+        Map.Entry<Object, ArrayDeque<T>> first = iterator.next();
+        T element = first.getValue().pollFirst();
+        iterator.remove();
+        if (!first.getValue().isEmpty()) {
+            // Back of the line for this owner
+            owners.put(first.getKey(), first.getValue());
+        } else if (owners.isEmpty()) {
+            levels.pollFirstEntry();
+        }
+        size--;
+        return element;
+    }
+
+    boolean remove(Object owner, int priority, T element) {
+        LinkedHashMap<Object, ArrayDeque<T>> owners = levels.get(priority);
+        ArrayDeque<T> elements = owners != null ? owners.get(owner) : null;
+        if (elements == null || !elements.remove(element)) {
+            return false;
+        }
+        if (elements.isEmpty()) {
+            owners.remove(owner);
+            if (owners.isEmpty()) {
+                levels.remove(priority);
+            }
+        }
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
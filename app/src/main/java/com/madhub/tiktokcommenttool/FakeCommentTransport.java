@@ -0,0 +1,170 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FakeCommentTransport is an in-process stand-in for the network that answers
+ * searches with generated video IDs and accepts every comment. The IDs are
+ * derived from the keyword, so different keywords find different videos, the
+ * same keyword the same ones; see {@link #videoId(String, int)}.
+ * <p>
+ * Latency and error rate are configurable, so pipelines can be run and measured
+ * locally without a network. With the default settings it answers instantly
+ * and never fails.
+ * </p>
+ * <p>
+ * Faults can also be injected on demand: {@link #startOutage(long)} makes every
+ * call fail for a while, to exercise retries and the circuit breaker, and
+ * {@link #rejectVideo(String)} makes the backend refuse comments on a video.
+ * </p>
+ */
+public class FakeCommentTransport implements VideoSearchTransport, CommentTransport {
+
+    private final int pagesPerSearch;
+    private final int videosPerPage;
+    private final long latencyMicros;
+    private final double errorRate;
+    private final Random random;
+
+    // Calls fail until this System.nanoTime() value, 0 for no outage
+    private volatile long outageUntilNanos;
+
+    // Comments on these videos are refused as if the request were invalid
+    private final Set<String> rejectedVideoIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    // Counters for completed calls
+    private final AtomicLong searchCalls = new AtomicLong();
+    private final AtomicLong postCalls = new AtomicLong();
+
+    /**
+     * Creates an instant, never failing transport returning one page of three videos.
+     */
+    public FakeCommentTransport() {
+        this(1, 3, 0L, 0.0);
+    }
+
+    /**
+     * @param pagesPerSearch Number of result pages every search returns.
+     * @param videosPerPage Number of video IDs on every page.
+     * @param latencyMicros Simulated duration of every call, 0 for none.
+     * @param errorRate Probability between 0 and 1 that a call fails.
+     */
+    public FakeCommentTransport(int pagesPerSearch, int videosPerPage, long latencyMicros, double errorRate) {
+        if (pagesPerSearch <= 0 || videosPerPage <= 0 || latencyMicros < 0 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Invalid parameters provided for the fake transport.");
+        }
+        this.pagesPerSearch = pagesPerSearch;
+        this.videosPerPage = videosPerPage;
+        this.latencyMicros = latencyMicros;
+        this.errorRate = errorRate;
+        this.random = new Random();
+    }
+
+    @Override
+    public VideoSearchPage fetchPage(String keyword, String filterDate, String cursor) {
+        simulateCall("search");
+        searchCalls.incrementAndGet();
+
+        int pageIndex = cursor == null ? 0 : Integer.parseInt(cursor);
+        String[] videoIds = new String[videosPerPage];
+        int base = pageIndex * videosPerPage;
+        for (int i = 0; i < videosPerPage; i++) {
+            videoIds[i] = videoId(keyword, base + i + 1);
+        }
+        String nextCursor = pageIndex + 1 < pagesPerSearch ? String.valueOf(pageIndex + 1) : null;
+        return new VideoSearchPage(videoIds, nextCursor);
+    }
+
+    /**
+     * @param keyword The searched keyword.
+     * @param position One based position of the video in the search results.
+     * @return The ID of the video the fake returns at that position.
+     */
+    public static String videoId(String keyword, int position) {
+        return Integer.toHexString(keyword.hashCode()) + "-" + position;
+    }
+
+    @Override
+    public void postComment(String videoId, String commentText) {
+        simulateCall("post");
+        postCalls.incrementAndGet();
+        if (rejectedVideoIds.contains(videoId)) {
+            throw new TransportException("Simulated rejected comment on " + videoId, false);
+        }
+    }
+
+    @Override
+    public List<String> fetchCommentAuthors(String videoId, int limit) {
+        simulateCall("collect");
+        List<String> authors = new ArrayList<>(limit);
+        for (int i = 0; i < limit; i++) {
+            authors.add("User" + (i + 1) + "@" + videoId);
+        }
+        return authors;
+    }
+
+    /**
+     * Makes every call fail until the outage is over.
+     *
+     * @param durationMillis Length of the outage.
+     */
+    public void startOutage(long durationMillis) {
+        outageUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    }
+
+    /**
+     * Ends an outage early.
+     */
+    public void stopOutage() {
+        outageUntilNanos = 0;
+    }
+
+    /**
+     * Makes every comment on the video fail with a non-retryable error.
+     *
+     * @param videoId The video to refuse comments on.
+     */
+    public void rejectVideo(String videoId) {
+        rejectedVideoIds.add(videoId);
+    }
+
+    public long getSearchCallCount() {
+        return searchCalls.get();
+    }
+
+    public long getPostCallCount() {
+        return postCalls.get();
+    }
+
+    // Sleeps for the configured latency and fails at the configured rate
+    private void simulateCall(String operation) {
+        if (latencyMicros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(latencyMicros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransportException("Interrupted during simulated " + operation);
+            }
+        }
+        long outageUntil = outageUntilNanos;
+        if (outageUntil != 0 && System.nanoTime() - outageUntil < 0) {
+            throw new TransportException("Simulated " + operation + " outage");
+        }
+        if (errorRate > 0 && nextDouble() < errorRate) {
+            throw new TransportException("Simulated " + operation + " failure");
+        }
+    }
+
+    private double nextDouble() {
+        synchronized (random) {
+            return random.nextDouble();
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.madhub.tiktokcommenttool;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * HttpCommentTransport talks to the comment backend over HTTP.
+ * <p>
+ * Every instance shares one {@link OkHttpClient}, so connections, threads and
+ * the dispatcher queue are pooled across the whole process. OkHttp negotiates
+ * gzip response compression and decompresses transparently. Search responses
+ * are read incrementally with a Gson {@link JsonReader} straight into the
+ * video ID array, without building an object tree for the page.
+ * </p>
+ * <p>
+ * Endpoints, relative to the base URL:
+ * <ul>
+ *     <li>{@code GET search?keyword=&filter_date=&cursor=} returns
+ *     {@code {"videos":[{"id":"..."}],"next_cursor":"..."}}</li>
+ *     <li>{@code POST videos/{id}/comments} with {@code {"text":"..."}}</li>
+ *     <li>{@code GET videos/{id}/comments?limit=} returns
+ *     {@code {"comments":[{"author":"..."}]}}</li>
+ * </ul>
+ * The base URL is a constructor argument, so a local stand-in such as
+ * MockWebServer can be used for testing.
+ * </p>
+ * <p>
+ * Searches and comment reads may be repeated, so every network error, server
+ * error, timeout and throttling response is retryable. A comment is only
+ * retryable if it surely was not accepted: the connection failed before the
+ * request went out, or the server answered 408, 429 or 503. A response that
+ * cannot be parsed is never retryable, the backend would send the same again.
+ * </p>
+ */
+public class HttpCommentTransport implements VideoSearchTransport, CommentTransport {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    // Connection pool and dispatcher limits of the shared client
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    private static final OkHttpClient SHARED_CLIENT = createClient();
+
+    // Marks a request once it is about to be written to an open connection
+    private static final Interceptor SEND_TRACKER = new Interceptor() {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            SendState state = chain.request().tag(SendState.class);
+            if (state != null) {
+                state.started = true;
+            }
+            return chain.proceed(chain.request());
+        }
+    };
+
+    // Whether a comment request left the device, set by SEND_TRACKER
+    private static final class SendState {
+        volatile boolean started;
+    }
+
+    private final OkHttpClient client;
+    private final HttpUrl baseUrl;
+
+    /**
+     * Creates a transport using the shared, pooled client.
+     *
+     * @param baseUrl The backend base URL, e.g. {@code https://api.example.com/v1/}.
+     */
+    public HttpCommentTransport(String baseUrl) {
+        this(SHARED_CLIENT, HttpUrl.get(baseUrl));
+    }
+
+    /**
+     * @param client The client to use, derive it from {@link #getSharedClient()} to keep pooling.
+     * @param baseUrl The backend base URL.
+     */
+    public HttpCommentTransport(OkHttpClient client, HttpUrl baseUrl) {
+        if (client == null || baseUrl == null) {
+            throw new IllegalArgumentException("Client and base URL must not be null.");
+        }
+        // Shares the pool and dispatcher of the given client
+        this.client = client.newBuilder().addNetworkInterceptor(SEND_TRACKER).build();
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return The client shared by every transport in the process.
+     */
+    public static OkHttpClient getSharedClient() {
+        return SHARED_CLIENT;
+    }
+
+    @Override
+    public VideoSearchPage fetchPage(String keyword, String filterDate, String cursor) {
+        Call call = client.newCall(searchRequest(keyword, filterDate, cursor));
+        try (Response response = call.execute()) {
+            return parseSearchPage(checkSuccessful(response, true));
+        } catch (IOException e) {
+            throw new TransportException("Search failed for keyword: " + keyword, e);
+        }
+    }
+
+    @Override
+    public void postComment(String videoId, String commentText) {
+        SendState state = new SendState();
+        Call call = client.newCall(postCommentRequest(videoId, commentText, state));
+        try (Response response = call.execute()) {
+            checkSuccessful(response, false);
+        } catch (IOException e) {
+            // Once the request went out the comment may have been accepted, posting it again could duplicate it
+            throw new TransportException("Posting comment failed for video: " + videoId, e, !state.started);
+        }
+    }
+
+    @Override
+    public List<String> fetchCommentAuthors(String videoId, int limit) {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegment("videos")
+                .addPathSegment(videoId)
+                .addPathSegment("comments")
+                .addQueryParameter("limit", String.valueOf(limit))
+                .build();
+        Call call = client.newCall(new Request.Builder().url(url).get().build());
+        try (Response response = call.execute()) {
+            return parseCommentAuthors(checkSuccessful(response, true), limit);
+        } catch (IOException e) {
+            throw new TransportException("Reading comments failed for video: " + videoId, e);
+        }
+    }
+
+    private Request searchRequest(String keyword, String filterDate, String cursor) {
+        HttpUrl.Builder url = baseUrl.newBuilder()
+                .addPathSegment("search")
+                .addQueryParameter("keyword", keyword);
+        if (filterDate != null) {
+            url.addQueryParameter("filter_date", filterDate);
+        }
+        if (cursor != null) {
+            url.addQueryParameter("cursor", cursor);
+        }
+        return new Request.Builder().url(url.build()).get().build();
+    }
+
+    private Request postCommentRequest(String videoId, String commentText, SendState state) {
+        HttpUrl url = baseUrl.newBuilder()
+                .addPathSegment("videos")
+                .addPathSegment(videoId)
+                .addPathSegment("comments")
+                .build();
+        return new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(JSON, commentJson(commentText)))
+                .tag(SendState.class, state)
+                .build();
+    }
+
+    private static String commentJson(String commentText) {
+        StringWriter json = new StringWriter(commentText.length() + 16);
+        try {
+            JsonWriter writer = new JsonWriter(json);
+            writer.beginObject().name("text").value(commentText).endObject();
+            writer.close();
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Reads a search page, keeping only the video IDs and the next cursor.
+     */
+    static VideoSearchPage parseSearchPage(ResponseBody body) throws IOException {
+        List<String> videoIds = new ArrayList<>();
+        String nextCursor = null;
+
+        JsonReader reader = new JsonReader(body.charStream());
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("videos".equals(name)) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String id = readStringField(reader, "id");
+                        if (id != null) {
+                            videoIds.add(id);
+                        }
+                    }
+                    reader.endArray();
+                } else if ("next_cursor".equals(name) && reader.peek() != JsonToken.NULL) {
+                    nextCursor = reader.nextString();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new TransportException("Malformed search response", e, false);
+        } finally {
+            reader.close();
+        }
+        return new VideoSearchPage(videoIds.toArray(new String[0]), nextCursor);
+    }
+
+    static List<String> parseCommentAuthors(ResponseBody body, int limit) throws IOException {
+        List<String> authors = new ArrayList<>();
+
+        JsonReader reader = new JsonReader(body.charStream());
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("comments".equals(reader.nextName())) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String author = readStringField(reader, "author");
+                        if (author != null && authors.size() < limit) {
+                            authors.add(author);
+                        }
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException | MalformedJsonException e) {
+            throw new TransportException("Malformed comments response", e, false);
+        } finally {
+            reader.close();
+        }
+        return authors;
+    }
+
+    // Reads one object of an array, returning a single string field and skipping the rest
+    private static String readStringField(JsonReader reader, String field) throws IOException {
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (field.equals(reader.nextName()) && reader.peek() != JsonToken.NULL) {
+                value = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+
+    /**
+     * @param idempotent Whether the request may be repeated, then every server error is retryable.
+     *                   Otherwise only answers that the request was not processed are.
+     */
+    private static ResponseBody checkSuccessful(Response response, boolean idempotent) {
+        if (!response.isSuccessful()) {
+            int code = response.code();
+            // Client errors other than timeouts and rate limiting fail the same way when repeated
+            boolean retryable = code == 408 || code == 429 || code == 503 || (idempotent && code >= 500);
+            throw new TransportException("HTTP " + code + " from " + response.request().url().encodedPath(), retryable);
+        }
+        return response.body();
+    }
+
+    private static OkHttpClient createClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .connectTimeout(10, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .writeTimeout(20, TimeUnit.SECONDS)
+                .build();
+    }
+}
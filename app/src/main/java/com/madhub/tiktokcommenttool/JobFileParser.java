@@ -0,0 +1,242 @@
+package com.madhub.tiktokcommenttool;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * JobFileParser reads comment job definitions from a file, one record at a time.
+ * <p>
+ * Two formats are supported:
+ * <ul>
+ *     <li>JSON lines: one object per line, e.g.
+ *     {@code {"keyword":"cats","comment":"Nice!","commentCount":2}}</li>
+ *     <li>CSV: {@code keyword,comment,commentCount} with RFC 4180 quoting and an
+ *     optional header row; the count column may be left out.</li>
+ * </ul>
+ * {@code commentCount} defaults to 1. Records are validated with
+ * {@link CommentEngine#validateJob(String, String, int)}; invalid or oversized
+ * records are counted, logged and skipped without stopping the import. Only
+ * the current record is held in memory, so files of any length are parsed in
+ * constant memory.
+ * </p>
+ */
+public final class JobFileParser {
+
+    private static final String TAG = "JobFileParser";
+
+    // Supported formats
+    public static final int FORMAT_JSON_LINES = 0;
+    public static final int FORMAT_CSV = 1;
+
+    // Longest accepted record, longer ones are skipped
+    private static final int MAX_RECORD_CHARS = 16 * 1024;
+
+    /**
+     * Receives every valid job, in file order.
+     */
+    public interface Sink {
+        void onJob(String keyword, String comment, int commentCount);
+    }
+
+    /**
+     * Number of accepted and rejected records of one parse.
+     */
+    public static final class Result {
+        public final int accepted;
+        public final int rejected;
+
+        Result(int accepted, int rejected) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+        }
+    }
+
+    private final int format;
+
+    // Current record, reused for every line or row
+    private final StringBuilder record = new StringBuilder(256);
+    private final String[] fields = new String[3];
+    private int fieldCount;
+    private boolean oversized;
+    private int lineNumber;
+    private int recordLine;
+
+    /**
+     * @param format {@link #FORMAT_JSON_LINES} or {@link #FORMAT_CSV}.
+     */
+    public JobFileParser(int format) {
+        if (format != FORMAT_JSON_LINES && format != FORMAT_CSV) {
+            throw new IllegalArgumentException("Invalid parameters provided for the job file parser.");
+        }
+        this.format = format;
+    }
+
+    /**
+     * Parses the whole input. The reader is not closed, wrap it in a buffered reader.
+     *
+     * @param reader The file contents.
+     * @param sink Receives the valid jobs.
+     * @return The number of accepted and rejected records.
+     * @throws IOException If the input could not be read.
+     */
+    public Result parse(Reader reader, Sink sink) throws IOException {
+        int accepted = 0;
+        int rejected = 0;
+        lineNumber = 0;
+        boolean first = true;
+        while (format == FORMAT_CSV ? readCsvRecord(reader) : readLine(reader)) {
+            if (format == FORMAT_JSON_LINES ? isBlank(record) : fieldCount == 1 && fields[0].isEmpty()) {
+                continue;
+            }
+            if (first && format == FORMAT_CSV && "keyword".equalsIgnoreCase(fields[0].trim())) {
+                // Header row
+                first = false;
+                continue;
+            }
+            first = false;
+            try {
+                if (oversized) {
+                    throw new IllegalArgumentException("Record longer than " + MAX_RECORD_CHARS + " characters");
+                }
+                if (format == FORMAT_JSON_LINES) {
+                    parseJsonRecord();
+                }
+                String keyword = fieldCount > 0 ? fields[0] : null;
+                String comment = fieldCount > 1 ? fields[1] : null;
+                int commentCount = fieldCount > 2 && !fields[2].trim().isEmpty()
+                        ? Integer.parseInt(fields[2].trim()) : 1;
+                CommentEngine.validateJob(keyword, comment, commentCount);
+                sink.onJob(keyword, comment, commentCount);
+                accepted++;
+            } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+                // NumberFormatException is an IllegalArgumentException, Gson reports malformed JSON as the others
+                rejected++;
+                CommentLog.w(TAG, "Skipped job on line {}: {}", recordLine, e.getMessage());
+            }
+        }
+        return new Result(accepted, rejected);
+    }
+
+    // Reads one line into the record, returns false at the end of the input
+    private boolean readLine(Reader reader) throws IOException {
+        record.setLength(0);
+        oversized = false;
+        int c = reader.read();
+        if (c < 0) {
+            return false;
+        }
+        lineNumber++;
+        recordLine = lineNumber;
+        while (c >= 0 && c != '\n') {
+            append((char) c);
+            c = reader.read();
+        }
+        if (record.length() > 0 && record.charAt(record.length() - 1) == '\r') {
+            record.setLength(record.length() - 1);
+        }
+        return true;
+    }
+
+    // Reads one CSV row into the fields, quoted fields may span lines
+    private boolean readCsvRecord(Reader reader) throws IOException {
+        oversized = false;
+        fieldCount = 0;
+        record.setLength(0);
+        int c = reader.read();
+        if (c < 0) {
+            return false;
+        }
+        lineNumber++;
+        recordLine = lineNumber;
+        boolean quoted = false;
+        while (c >= 0) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    if (ch == '\n') {
+                        lineNumber++;
+                    }
+                    append(ch);
+                }
+            } else if (ch == '"' && record.length() == 0) {
+                quoted = true;
+            } else if (ch == ',') {
+                endField();
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                append(ch);
+            }
+            c = reader.read();
+        }
+        endField();
+        return true;
+    }
+
+    private void endField() {
+        if (fieldCount < fields.length) {
+            fields[fieldCount] = record.toString();
+        }
+        // Extra columns are ignored
+        fieldCount++;
+        record.setLength(0);
+    }
+
+    private void append(char c) {
+        if (record.length() < MAX_RECORD_CHARS) {
+            record.append(c);
+        } else {
+            oversized = true;
+        }
+    }
+
+    // Fills the fields from the JSON object on the current line
+    private void parseJsonRecord() throws IOException {
+        fields[0] = null;
+        fields[1] = null;
+        fields[2] = "";
+        fieldCount = fields.length;
+        JsonReader json = new JsonReader(new StringReader(record.toString()));
+        try {
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (json.peek() == JsonToken.NULL) {
+                    json.skipValue();
+                } else if ("keyword".equals(name)) {
+                    fields[0] = json.nextString();
+                } else if ("comment".equals(name)) {
+                    fields[1] = json.nextString();
+                } else if ("commentCount".equals(name)) {
+                    fields[2] = json.nextString();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        } finally {
+            json.close();
+        }
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
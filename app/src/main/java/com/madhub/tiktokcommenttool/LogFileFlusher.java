@@ -0,0 +1,226 @@
+package com.madhub.tiktokcommenttool;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * LogFileFlusher is the background thread that drains {@link LogRingBuffer},
+ * formats the records and appends them to a log file.
+ * <p>
+ * All records drained in one pass are encoded into a single direct buffer and
+ * written with as few {@link FileChannel} writes as possible. Once the file
+ * grows past {@link #MAX_FILE_BYTES} it is rotated, keeping {@link #MAX_ROTATED_FILES}
+ * older copies.
+ * </p>
+ * <p>
+ * A failed write, e.g. on a full disk, drops that batch, closes the file and
+ * pauses the thread with a doubling delay of up to {@link #MAX_BACKOFF_MILLIS};
+ * the file is opened again for the next batch. Meanwhile the ring buffer fills
+ * up and further records are dropped and counted.
+ * </p>
+ */
+final class LogFileFlusher extends Thread {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+    private static final long MAX_BACKOFF_MILLIS = 60000L;
+    private static final long MAX_FILE_BYTES = 2L * 1024 * 1024;
+    private static final int MAX_ROTATED_FILES = 3;
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+
+    private static final char[] LEVEL_CHARS = {'?', '?', 'V', 'D', 'I', 'W', 'E'};
+
+    private final LogRingBuffer ring;
+    private final File logFile;
+    private final LogRingBuffer.Record[] batch;
+
+    // Formatting state, only used by this thread
+    private final StringBuilder line = new StringBuilder(256);
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+    private final Date date = new Date();
+    private final CharsetEncoder encoder = Charset.forName("UTF-8").newEncoder();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+
+    private FileChannel channel;
+    private volatile boolean running = true;
+
+    LogFileFlusher(LogRingBuffer ring, File logFile) {
+        super("comment-log-flusher");
+        setDaemon(true);
+        setPriority(Thread.MIN_PRIORITY);
+        this.ring = ring;
+        this.logFile = logFile;
+        this.batch = LogRingBuffer.newSlots(ring.capacity());
+    }
+
+    /**
+     * Stops the thread after writing every pending record.
+     */
+    void shutdown() {
+        running = false;
+        // Not interrupted, that would close the channel in the middle of a write
+        ring.wakeUp();
+        try {
+            join(FLUSH_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        long backoffMillis = FLUSH_INTERVAL_MILLIS;
+        try {
+            while (running) {
+                if (tryFlush(ring.drainTo(batch, FLUSH_INTERVAL_MILLIS))) {
+                    backoffMillis = FLUSH_INTERVAL_MILLIS;
+                } else {
+                    pause(backoffMillis);
+                    backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                }
+            }
+            tryFlush(ring.drainTo(batch, 0));
+        } catch (InterruptedException e) {
+            // Nobody interrupts this thread but the dying process
+        } finally {
+            closeChannel();
+        }
+    }
+
+    // Writes a batch, or drops it and starts over with a fresh channel if the file cannot be written
+    private boolean tryFlush(int count) {
+        try {
+            flush(count);
+            return true;
+        } catch (IOException e) {
+            // Logging must never take the app down
+            for (int i = 0; i < count; i++) {
+                batch[i].clear();
+            }
+            writeBuffer.clear();
+            closeChannel();
+            return false;
+        }
+    }
+
+    // Sleeps in short steps so shutdown() is not held up by a long backoff
+    private void pause(long millis) throws InterruptedException {
+        long deadline = System.nanoTime() + millis * 1000000L;
+        long remainingMillis = millis;
+        while (running && remainingMillis > 0) {
+            Thread.sleep(Math.min(remainingMillis, FLUSH_INTERVAL_MILLIS));
+            remainingMillis = (deadline - System.nanoTime()) / 1000000L;
+        }
+    }
+
+    private void flush(int count) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        openChannel();
+        encoder.reset();
+        for (int i = 0; i < count; i++) {
+            format(batch[i]);
+            batch[i].clear();
+            encode(line);
+        }
+        drainWriteBuffer();
+
+        if (channel.size() > MAX_FILE_BYTES) {
+            rotate();
+        }
+    }
+
+    private void format(LogRingBuffer.Record record) {
+        line.setLength(0);
+        date.setTime(record.timeMillis);
+        line.append(timeFormat.format(date))
+                .append(' ')
+                .append(LEVEL_CHARS[Math.min(record.level, LEVEL_CHARS.length - 1)])
+                .append('/')
+                .append(record.tag)
+                .append(": ");
+
+        // Substitute {} placeholders: object arguments first, then the long argument
+        int objectArgs = record.argFlags & 0xff;
+        boolean hasNumber = (record.argFlags & LogRingBuffer.HAS_NUMBER) != 0;
+        int argIndex = 0;
+        String template = record.template;
+        int start = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf("{}", start)) >= 0) {
+            line.append(template, start, placeholder);
+            if (argIndex < objectArgs) {
+                line.append(argIndex == 0 ? record.arg1 : record.arg2);
+            } else if (argIndex == objectArgs && hasNumber) {
+                line.append(record.number);
+            } else {
+                line.append("{}");
+            }
+            argIndex++;
+            start = placeholder + 2;
+        }
+        line.append(template, start, template.length()).append('\n');
+    }
+
+    private void encode(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, writeBuffer, false);
+            if (result.isOverflow()) {
+                drainWriteBuffer();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void drainWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        closeChannel();
+        for (int i = MAX_ROTATED_FILES - 1; i >= 1; i--) {
+            File older = new File(logFile.getPath() + "." + i);
+            if (older.exists()) {
+                older.renameTo(new File(logFile.getPath() + "." + (i + 1)));
+            }
+        }
+        logFile.renameTo(new File(logFile.getPath() + ".1"));
+    }
+
+    private void openChannel() throws IOException {
+        if (channel == null) {
+            File directory = logFile.getParentFile();
+            if (directory != null && !directory.exists()) {
+                directory.mkdirs();
+            }
+            channel = new FileOutputStream(logFile, true).getChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to do with the file
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.madhub.tiktokcommenttool;
+
+/**
+ * LogRingBuffer holds pending {@link CommentLog} records in preallocated slots.
+ * <p>
+ * Producers copy references and primitives into the next free slot and never
+ * allocate. When the buffer is full new records are dropped and counted rather
+ * than blocking the caller. The single consumer, {@link LogFileFlusher}, moves
+ * pending records into its own slots in one short critical section and formats
+ * them outside the lock.
+ * </p>
+ */
+final class LogRingBuffer {
+
+    // Bit in argFlags telling that the record carries a long argument
+    static final int HAS_NUMBER = 0x100;
+
+    /**
+     * A single log record. Only touched while holding the buffer lock or by the consumer owning it.
+     */
+    static final class Record {
+        int level;
+        long timeMillis;
+        String tag;
+        String template;
+        // Number of object arguments in the low bits, HAS_NUMBER for the long argument
+        int argFlags;
+        Object arg1;
+        Object arg2;
+        long number;
+
+        void copyFrom(Record other) {
+            level = other.level;
+            timeMillis = other.timeMillis;
+            tag = other.tag;
+            template = other.template;
+            argFlags = other.argFlags;
+            arg1 = other.arg1;
+            arg2 = other.arg2;
+            number = other.number;
+        }
+
+        void clear() {
+            // Drop references so arguments can be collected
+            tag = null;
+            template = null;
+            arg1 = null;
+            arg2 = null;
+        }
+    }
+
+    private final Record[] slots;
+    private final int mask;
+    private long head;
+    private long tail;
+    private long dropped;
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two.
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = newSlots(size);
+        mask = size - 1;
+    }
+
+    static Record[] newSlots(int count) {
+        Record[] records = new Record[count];
+        for (int i = 0; i < count; i++) {
+            records[i] = new Record();
+        }
+        return records;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    void add(int level, String tag, String template, int argFlags, Object arg1, Object arg2, long number) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (tail - head == slots.length) {
+                dropped++;
+                return;
+            }
+            Record record = slots[(int) (tail & mask)];
+            record.level = level;
+            record.timeMillis = now;
+            record.tag = tag;
+            record.template = template;
+            record.argFlags = argFlags;
+            record.arg1 = arg1;
+            record.arg2 = arg2;
+            record.number = number;
+            tail++;
+            if (tail - head == slots.length / 2) {
+                // Wake the flusher early when the buffer is half full
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Moves pending records into the consumer's slots.
+     *
+     * @param target Slots owned by the consumer, at least {@link #capacity()} long.
+     * @param waitMillis Time to wait for records if none are pending, 0 to return immediately.
+     * @return The number of records moved.
+     */
+    synchronized int drainTo(Record[] target, long waitMillis) throws InterruptedException {
+        if (tail == head && waitMillis > 0) {
+            wait(waitMillis);
+        }
+        int count = (int) (tail - head);
+        for (int i = 0; i < count; i++) {
+            Record record = slots[(int) ((head + i) & mask)];
+            target[i].copyFrom(record);
+            record.clear();
+        }
+        head = tail;
+        return count;
+    }
+
+    /**
+     * Wakes a consumer waiting in {@link #drainTo(Record[], long)}.
+     */
+    synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    synchronized long getDroppedCount() {
+        return dropped;
+    }
+}
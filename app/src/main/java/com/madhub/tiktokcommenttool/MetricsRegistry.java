@@ -0,0 +1,98 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MetricsRegistry holds the process-wide counters and latency histograms of the
+ * comment pipeline.
+ * <p>
+ * Metrics are created once and cached by the code recording them, so the hot
+ * path only touches a {@link StripedCounter} or {@link LatencyHistogram} and
+ * never the registry map. {@link #snapshot()} copies everything for export.
+ * </p>
+ */
+public final class MetricsRegistry {
+
+    // Latency histogram names
+    public static final String SEARCH = "search";
+    public static final String POST = "post";
+    public static final String COLLECT = "collect";
+    public static final String QUEUE_WAIT = "queue_wait";
+    public static final String PACING_WAIT = "pacing_wait";
+
+    // Counter names
+    public static final String SEARCH_FAILURES = "search_failures";
+    public static final String POST_FAILURES = "post_failures";
+    public static final String COLLECT_FAILURES = "collect_failures";
+    public static final String RETRIES = "retries";
+    public static final String CIRCUIT_OPENS = "circuit_opens";
+    public static final String DEAD_LETTERS = "dead_letters";
+
+    private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, StripedCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * @return The registry shared by the whole process.
+     */
+    public static MetricsRegistry getShared() {
+        return SHARED;
+    }
+
+    /**
+     * @param name The counter name.
+     * @return The counter, created on first use.
+     */
+    public StripedCounter counter(String name) {
+        StripedCounter counter = counters.get(name);
+        if (counter == null) {
+            StripedCounter created = new StripedCounter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * @param name The histogram name.
+     * @return The histogram, created on first use.
+     */
+    public LatencyHistogram latency(String name) {
+        LatencyHistogram histogram = latencies.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = latencies.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return A copy of every metric, sorted by name.
+     */
+    public MetricsSnapshot snapshot() {
+        TreeMap<String, Long> counterValues = new TreeMap<>();
+        for (Map.Entry<String, StripedCounter> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        // Search cache efficiency belongs next to the search latency
+        SearchResultCache cache = SearchResultCache.getShared();
+        counterValues.put("search_cache_memory_hits", cache.getMemoryHitCount());
+        counterValues.put("search_cache_disk_hits", cache.getDiskHitCount());
+        counterValues.put("search_cache_misses", cache.getMissCount());
+
+        TreeMap<String, MetricsSnapshot.Latency> latencyValues = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            latencyValues.put(entry.getKey(), entry.getValue().summarize());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, latencyValues);
+    }
+}
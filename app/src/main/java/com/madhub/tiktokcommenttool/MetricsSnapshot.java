@@ -0,0 +1,111 @@
+package com.madhub.tiktokcommenttool;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * MetricsSnapshot is an immutable copy of every counter and latency histogram
+ * in {@link MetricsRegistry} at one point in time.
+ */
+public final class MetricsSnapshot {
+
+    /**
+     * Summary of one latency histogram, all durations in microseconds.
+     */
+    public static final class Latency {
+        public final long count;
+        public final long meanMicros;
+        public final long p50Micros;
+        public final long p90Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+
+        Latency(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+    }
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    public final long timestampMillis;
+    public final Map<String, Long> counters;
+    public final Map<String, Latency> latencies;
+
+    MetricsSnapshot(long timestampMillis, TreeMap<String, Long> counters, TreeMap<String, Latency> latencies) {
+        this.timestampMillis = timestampMillis;
+        this.counters = counters;
+        this.latencies = latencies;
+    }
+
+    public long getCounter(String name) {
+        Long value = counters.get(name);
+        return value != null ? value : 0L;
+    }
+
+    public Latency getLatency(String name) {
+        return latencies.get(name);
+    }
+
+    public String toJson() {
+        return GSON.toJson(this);
+    }
+
+    /**
+     * Writes the snapshot as JSON, replacing the file atomically.
+     *
+     * @param file The target file.
+     * @throws IOException If the file could not be written.
+     */
+    public void writeTo(File file) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+        try {
+            GSON.toJson(this, writer);
+        } finally {
+            writer.close();
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * @return A one line summary suitable for logcat.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Metrics{");
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            builder.append(counter.getKey()).append('=').append(counter.getValue()).append(", ");
+        }
+        for (Map.Entry<String, Latency> latency : latencies.entrySet()) {
+            Latency value = latency.getValue();
+            builder.append(latency.getKey())
+                    .append("[n=").append(value.count)
+                    .append(" p50=").append(value.p50Micros)
+                    .append("us p99=").append(value.p99Micros)
+                    .append("us], ");
+        }
+        if (builder.length() > 8) {
+            builder.setLength(builder.length() - 2);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,28 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data access for the processed video index.
+ */
+@Dao
+public interface ProcessedVideoDao {
+
+    @Query("SELECT COUNT(*) FROM processed_videos WHERE idHash = :idHash")
+    int count(long idHash);
+
+    @Query("SELECT COUNT(*) FROM processed_videos")
+    long countAll();
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<ProcessedVideoEntity> videos);
+
+    // Keyset pagination over the primary key, no OFFSET scans
+    @Query("SELECT idHash FROM processed_videos WHERE idHash >= :fromHash ORDER BY idHash LIMIT :limit")
+    long[] loadPage(long fromHash, int limit);
+}
@@ -0,0 +1,17 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * ProcessedVideoEntity is a video that has been fully handled, stored as the
+ * 64-bit hash of its ID to keep the table compact.
+ */
+@Entity(tableName = "processed_videos")
+public class ProcessedVideoEntity {
+
+    // ProcessedVideoIndex.hash() of the video ID
+    @PrimaryKey
+    public long idHash;
+    public long processedAt;
+}
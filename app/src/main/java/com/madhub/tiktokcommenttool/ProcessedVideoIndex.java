@@ -0,0 +1,227 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ProcessedVideoIndex remembers every video that has been fully handled, across
+ * runs, so later jobs can skip it before doing any network work.
+ * <p>
+ * Video IDs are stored as 64-bit hashes in a persistent {@link Store}. A
+ * {@link BloomFilter} in front answers most lookups for new videos without
+ * touching the store; only Bloom positives cost a primary key lookup, so the
+ * lookup cost stays flat as the history grows to millions of IDs. The filter is
+ * built from the store on first use and rebuilt with twice the capacity when
+ * the history outgrows it. The rebuild reads the store without holding the
+ * lock, so lookups keep using the old filter until the new one is swapped in.
+ * </p>
+ */
+public class ProcessedVideoIndex {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int LOAD_PAGE_SIZE = 10000;
+    private static final int WRITE_BATCH_SIZE = 64;
+
+    /**
+     * Persistent set of processed video hashes.
+     */
+    public interface Store {
+        boolean contains(long idHash);
+
+        /**
+         * Adds hashes in one transaction, existing hashes are ignored.
+         */
+        void addAll(List<Long> idHashes, long processedAt);
+
+        /**
+         * @return Up to {@code limit} stored hashes not less than {@code fromHash}, in ascending order.
+         */
+        long[] loadPage(long fromHash, int limit);
+
+        long count();
+    }
+
+    private final Store store;
+    private volatile BloomFilter bloom;
+
+    // Filter sizing, guarded by "this"
+    private long capacity;
+    private long size;
+
+    // Hashes marked but not yet written, guarded by "this"
+    private final Set<Long> pendingWrites = new HashSet<>();
+
+    // Hashes marked while a larger filter is being built, replayed into it before the swap; guarded by "this"
+    private List<Long> marksDuringGrow;
+
+    /**
+     * @param store The persistent set.
+     * @param initialCapacity Number of IDs the Bloom filter is sized for at first.
+     */
+    public ProcessedVideoIndex(Store store, long initialCapacity) {
+        if (store == null || initialCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for the processed video index.");
+        }
+        this.store = store;
+        this.capacity = initialCapacity;
+    }
+
+    /**
+     * @return The 64-bit FNV-1a hash used as the stored key of a video ID.
+     */
+    public static long hash(String videoId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < videoId.length(); i++) {
+            hash ^= videoId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if the video was processed by this or an earlier run.
+     */
+    public boolean isProcessed(String videoId) {
+        long hash = hash(videoId);
+        if (!bloom().mightContain(hash)) {
+            return false;
+        }
+        synchronized (this) {
+            if (pendingWrites.contains(hash)) {
+                return true;
+            }
+        }
+        return store.contains(hash);
+    }
+
+    /**
+     * Records a video as processed. Writes are batched, call {@link #flush()}
+     * when a job finishes.
+     */
+    public void markProcessed(String videoId) {
+        long hash = hash(videoId);
+        BloomFilter filter = bloom();
+        if (filter.mightContain(hash) && (pendingContains(hash) || store.contains(hash))) {
+            return;
+        }
+
+        boolean flushNow;
+        boolean growNow;
+        synchronized (this) {
+            if (!pendingWrites.add(hash)) {
+                return;
+            }
+            // Under the lock, so a concurrent grow either replays this mark or sees it in the filter
+            bloom.put(hash);
+            if (marksDuringGrow != null) {
+                marksDuringGrow.add(hash);
+            }
+            size++;
+            flushNow = pendingWrites.size() >= WRITE_BATCH_SIZE;
+            growNow = size > capacity && marksDuringGrow == null;
+        }
+        if (flushNow) {
+            flush();
+        }
+        if (growNow) {
+            grow();
+        }
+    }
+
+    /**
+     * Writes every pending mark to the store.
+     */
+    public void flush() {
+        List<Long> batch;
+        synchronized (this) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingWrites);
+        }
+        store.addAll(batch, System.currentTimeMillis());
+        synchronized (this) {
+            pendingWrites.removeAll(batch);
+        }
+    }
+
+    /**
+     * @return Memory held by the Bloom filter, 0 before it is loaded. Doubles whenever the filter grows.
+     */
+    public long getFilterSizeInBytes() {
+        BloomFilter filter = bloom;
+        return filter != null ? filter.sizeInBytes() : 0;
+    }
+
+    private synchronized boolean pendingContains(long hash) {
+        return pendingWrites.contains(hash);
+    }
+
+    private BloomFilter bloom() {
+        BloomFilter filter = bloom;
+        if (filter == null) {
+            synchronized (this) {
+                filter = bloom;
+                if (filter == null) {
+                    size = store.count();
+                    capacity = Math.max(capacity, size * 2);
+                    filter = load(capacity);
+                    bloom = filter;
+                }
+            }
+        }
+        return filter;
+    }
+
+    // Rebuilds the filter with twice the capacity so the false positive rate stays low
+    private void grow() {
+        long newCapacity;
+        synchronized (this) {
+            if (size <= capacity || marksDuringGrow != null) {
+                return;
+            }
+            newCapacity = capacity * 2;
+            marksDuringGrow = new ArrayList<>();
+        }
+
+        BloomFilter filter = null;
+        try {
+            // Off the lock: lookups and marks continue on the old filter meanwhile
+            flush();
+            filter = load(newCapacity);
+        } finally {
+            synchronized (this) {
+                if (filter != null) {
+                    // Marks made during the load may have been written after their page was read
+                    for (Long hash : marksDuringGrow) {
+                        filter.put(hash);
+                    }
+                    for (Long hash : pendingWrites) {
+                        filter.put(hash);
+                    }
+                    capacity = newCapacity;
+                    bloom = filter;
+                }
+                marksDuringGrow = null;
+            }
+        }
+    }
+
+    // Streams every stored hash into a new filter, page by page
+    private BloomFilter load(long expectedInsertions) {
+        BloomFilter filter = new BloomFilter(expectedInsertions, FALSE_POSITIVE_RATE);
+        long from = Long.MIN_VALUE;
+        while (true) {
+            long[] page = store.loadPage(from, LOAD_PAGE_SIZE);
+            for (long hash : page) {
+                filter.put(hash);
+            }
+            if (page.length < LOAD_PAGE_SIZE || page[page.length - 1] == Long.MAX_VALUE) {
+                return filter;
+            }
+            from = page[page.length - 1] + 1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RetryPolicy decides whether a failed transport call is repeated and how long
+ * to wait before the next attempt.
+ * <p>
+ * Delays grow exponentially from the base delay up to the maximum and are
+ * fully jittered, i.e. drawn uniformly between zero and the exponential value,
+ * so workers failing together do not retry in lockstep.
+ * </p>
+ */
+public final class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 500L, 30000L);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * @param maxAttempts Attempts per call including the first one, 1 for no retries.
+     * @param baseDelayMillis Upper bound of the delay before the first retry.
+     * @param maxDelayMillis Upper bound of every delay.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts <= 0 || baseDelayMillis <= 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Invalid parameters provided for the retry policy.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * @param error The failure of the attempt.
+     * @param attempt The attempt that failed, starting at 1.
+     * @return true if the call should be attempted again.
+     */
+    public boolean shouldRetry(RuntimeException error, int attempt) {
+        return attempt < maxAttempts && isRetryable(error);
+    }
+
+    /**
+     * @return true for transport failures that may pass when repeated, false for
+     * rejected requests and errors outside the transport.
+     */
+    public static boolean isRetryable(RuntimeException error) {
+        return error instanceof TransportException && ((TransportException) error).isRetryable();
+    }
+
+    /**
+     * @param attempt The attempt that failed, starting at 1.
+     * @return The time to wait before the next attempt.
+     */
+    public long delayMillis(int attempt) {
+        long exponential = baseDelayMillis << Math.min(attempt - 1, 30);
+        long cap = exponential > 0 ? Math.min(maxDelayMillis, exponential) : maxDelayMillis;
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
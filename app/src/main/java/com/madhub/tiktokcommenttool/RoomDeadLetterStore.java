@@ -0,0 +1,40 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RoomDeadLetterStore keeps failed videos in {@link CommentDatabase}. Only the
+ * newest {@link #MAX_DEAD_LETTERS} are kept, so a long outage cannot fill the disk.
+ */
+public class RoomDeadLetterStore implements DeadLetterStore {
+
+    // Older dead letters are deleted once there are more
+    private static final int MAX_DEAD_LETTERS = 1000;
+
+    // Trimming runs every this many inserts instead of on each one
+    private static final int TRIM_INTERVAL = 50;
+
+    private final DeadLetterDao dao;
+    private final AtomicInteger insertsSinceTrim = new AtomicInteger();
+
+    public RoomDeadLetterStore(CommentDatabase database) {
+        this.dao = database.deadLetterDao();
+    }
+
+    @Override
+    public void add(CommentPipeline.Job job, String videoId, int commentsPosted, RuntimeException error) {
+        DeadLetterEntity deadLetter = new DeadLetterEntity();
+        deadLetter.keyword = job.getKeyword();
+        deadLetter.videoId = videoId;
+        deadLetter.commentContent = job.getCommentText();
+        deadLetter.commentCount = job.getCommentCount();
+        deadLetter.commentsPosted = commentsPosted;
+        deadLetter.error = String.valueOf(error.getMessage());
+        deadLetter.failedAt = System.currentTimeMillis();
+        dao.insert(deadLetter);
+        if (insertsSinceTrim.incrementAndGet() >= TRIM_INTERVAL) {
+            insertsSinceTrim.set(0);
+            dao.deleteAllButNewest(MAX_DEAD_LETTERS);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.madhub.tiktokcommenttool;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RoomProcessedVideoStore keeps the {@link ProcessedVideoIndex} history in
+ * {@link CommentDatabase}, so processed videos are remembered across runs.
+ */
+public class RoomProcessedVideoStore implements ProcessedVideoIndex.Store {
+
+    // The Bloom filter starts sized for this many videos and grows with the history
+    private static final long INITIAL_CAPACITY = 100000;
+
+    private static volatile ProcessedVideoIndex sharedIndex;
+
+    private final ProcessedVideoDao dao;
+
+    public RoomProcessedVideoStore(CommentDatabase database) {
+        this.dao = database.processedVideoDao();
+    }
+
+    /**
+     * Returns the index shared by every entry point of the process, creating it on first use.
+     *
+     * @param context Any context.
+     * @return The process-wide index.
+     */
+    public static ProcessedVideoIndex getSharedIndex(Context context) {
+        ProcessedVideoIndex result = sharedIndex;
+        if (result == null) {
+            synchronized (RoomProcessedVideoStore.class) {
+                result = sharedIndex;
+                if (result == null) {
+                    result = new ProcessedVideoIndex(
+                            new RoomProcessedVideoStore(CommentDatabase.getInstance(context)), INITIAL_CAPACITY);
+                    sharedIndex = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean contains(long idHash) {
+        return dao.count(idHash) > 0;
+    }
+
+    @Override
+    public void addAll(List<Long> idHashes, long processedAt) {
+        List<ProcessedVideoEntity> videos = new ArrayList<>(idHashes.size());
+        for (Long idHash : idHashes) {
+            ProcessedVideoEntity video = new ProcessedVideoEntity();
+            video.idHash = idHash;
+            video.processedAt = processedAt;
+            videos.add(video);
+        }
+        // A single @Insert of a list already runs in one transaction
+        dao.insertAll(videos);
+    }
+
+    @Override
+    public long[] loadPage(long fromHash, int limit) {
+        return dao.loadPage(fromHash, limit);
+    }
+
+    @Override
+    public long count() {
+        return dao.countAll();
+    }
+}
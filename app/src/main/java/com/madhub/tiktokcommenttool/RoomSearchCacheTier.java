@@ -0,0 +1,54 @@
+package com.madhub.tiktokcommenttool;
+
+import android.text.TextUtils;
+
+/**
+ * RoomSearchCacheTier stores {@link SearchResultCache} pages in {@link CommentDatabase}
+ * so cached searches survive process restarts. Only the newest {@link #MAX_PAGES}
+ * are kept, so a device searching new keywords 24/7 cannot fill the disk.
+ */
+public class RoomSearchCacheTier implements SearchResultCache.DiskTier {
+
+    private static final String SEPARATOR = "\n";
+
+    // Older pages are deleted on eviction once there are more, even before they expire
+    private static final int MAX_PAGES = 1000;
+
+    private final SearchCacheDao dao;
+
+    public RoomSearchCacheTier(CommentDatabase database) {
+        this.dao = database.searchCacheDao();
+    }
+
+    @Override
+    public VideoSearchPage get(String key, long minFetchedAt) {
+        SearchCacheEntity entry = dao.get(key, minFetchedAt);
+        if (entry == null) {
+            return null;
+        }
+        String[] videoIds = TextUtils.isEmpty(entry.videoIds) ? new String[0] : entry.videoIds.split(SEPARATOR);
+        return new VideoSearchPage(videoIds, entry.nextCursor);
+    }
+
+    @Override
+    public void put(String key, VideoSearchPage page, long fetchedAt) {
+        SearchCacheEntity entry = new SearchCacheEntity();
+        entry.cacheKey = key;
+        entry.videoIds = TextUtils.join(SEPARATOR, page.getVideoIds());
+        entry.nextCursor = page.getNextCursor();
+        entry.fetchedAt = fetchedAt;
+        dao.put(entry);
+    }
+
+    /**
+     * Removes expired pages and then the oldest pages beyond {@link #MAX_PAGES}.
+     * Called by {@link SearchResultCache} while pages are added.
+     *
+     * @param minFetchedAt Pages fetched before this time are deleted.
+     * @return The number of deleted pages.
+     */
+    @Override
+    public int evictOlderThan(long minFetchedAt) {
+        return dao.deleteOlderThan(minFetchedAt) + dao.deleteAllButNewest(MAX_PAGES);
+    }
+}
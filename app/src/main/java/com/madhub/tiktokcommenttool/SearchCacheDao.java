@@ -0,0 +1,27 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+/**
+ * Data access for the disk tier of the search result cache.
+ */
+@Dao
+public interface SearchCacheDao {
+
+    @Query("SELECT * FROM search_cache WHERE cacheKey = :cacheKey AND fetchedAt >= :minFetchedAt")
+    SearchCacheEntity get(String cacheKey, long minFetchedAt);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(SearchCacheEntity entry);
+
+    @Query("DELETE FROM search_cache WHERE fetchedAt < :minFetchedAt")
+    int deleteOlderThan(long minFetchedAt);
+
+    // Deletes everything but the most recently fetched pages, nothing while there are fewer
+    @Query("DELETE FROM search_cache WHERE cacheKey NOT IN "
+            + "(SELECT cacheKey FROM search_cache ORDER BY fetchedAt DESC LIMIT :keep)")
+    int deleteAllButNewest(int keep);
+}
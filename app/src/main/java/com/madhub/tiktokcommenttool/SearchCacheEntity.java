@@ -0,0 +1,22 @@
+package com.madhub.tiktokcommenttool;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * SearchCacheEntity is a cached video search page in the disk tier of
+ * {@link SearchResultCache}.
+ */
+@Entity(tableName = "search_cache")
+public class SearchCacheEntity {
+
+    @PrimaryKey
+    @NonNull
+    public String cacheKey = "";
+
+    // Video IDs of the page, separated by newlines
+    public String videoIds;
+    public String nextCursor;
+    public long fetchedAt;
+}
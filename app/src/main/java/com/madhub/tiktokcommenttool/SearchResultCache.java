@@ -0,0 +1,218 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SearchResultCache keeps recently fetched video search pages so repeated or
+ * scheduled jobs on the same keyword skip the search round-trip.
+ * <p>
+ * Pages are keyed by keyword, publish date filter and page cursor. The memory
+ * tier is an LRU map with a fixed number of entries; every entry expires after
+ * the configured time to live. An optional {@link DiskTier} keeps pages across
+ * process restarts; expired pages are evicted from it every
+ * {@link #DISK_EVICTION_INTERVAL} puts. One instance is shared by the whole
+ * process, see {@link #getShared()}.
+ * </p>
+ */
+public class SearchResultCache {
+
+    // Default limits of the shared cache
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    // Expired disk pages are deleted every this many puts instead of on each one
+    static final int DISK_EVICTION_INTERVAL = 64;
+
+    private static final SearchResultCache SHARED = new SearchResultCache(DEFAULT_MAX_ENTRIES, DEFAULT_TTL_MILLIS);
+
+    /**
+     * Persistent second tier consulted on memory misses.
+     */
+    public interface DiskTier {
+        /**
+         * @return The stored page, or null if absent or fetched before {@code minFetchedAt}.
+         */
+        VideoSearchPage get(String key, long minFetchedAt);
+
+        void put(String key, VideoSearchPage page, long fetchedAt);
+
+        /**
+         * Deletes the pages fetched before {@code minFetchedAt}. The tier may also drop
+         * its oldest pages to stay within a size limit.
+         *
+         * @return The number of deleted pages.
+         */
+        int evictOlderThan(long minFetchedAt);
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CachedPage> entries;
+    private volatile DiskTier diskTier;
+    private final AtomicInteger putsSinceEviction = new AtomicInteger();
+
+    // Hit/miss counters
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries Maximum number of pages kept in memory.
+     * @param ttlMillis Time after which a page is fetched again.
+     */
+    public SearchResultCache(final int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for the search cache.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        // Access order turns the map into an LRU
+        this.entries = new LinkedHashMap<String, CachedPage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by every comment pipeline in the process.
+     */
+    public static SearchResultCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Attaches or removes the persistent tier.
+     *
+     * @param diskTier The tier to consult on memory misses, or null for memory only.
+     */
+    public void setDiskTier(DiskTier diskTier) {
+        this.diskTier = diskTier;
+    }
+
+    /**
+     * Looks up a cached page.
+     *
+     * @param keyword The searched keyword.
+     * @param filterDate The publish date filter, may be null.
+     * @param cursor The page cursor, null for the first page.
+     * @return The cached page, or null on a miss.
+     */
+    public VideoSearchPage get(String keyword, String filterDate, String cursor) {
+        String key = key(keyword, filterDate, cursor);
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            CachedPage entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.fetchedAt < ttlMillis) {
+                    memoryHits.incrementAndGet();
+                    return entry.page;
+                }
+                entries.remove(key);
+            }
+        }
+
+        DiskTier tier = diskTier;
+        if (tier != null) {
+            VideoSearchPage page = tier.get(key, now - ttlMillis);
+            if (page != null) {
+                // Not promoted to memory, the disk tier does not report the original fetch time
+                diskHits.incrementAndGet();
+                return page;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a freshly fetched page in every tier.
+     *
+     * @param keyword The searched keyword.
+     * @param filterDate The publish date filter, may be null.
+     * @param cursor The page cursor, null for the first page.
+     * @param page The fetched page.
+     */
+    public void put(String keyword, String filterDate, String cursor, VideoSearchPage page) {
+        String key = key(keyword, filterDate, cursor);
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            entries.put(key, new CachedPage(page, now));
+        }
+        DiskTier tier = diskTier;
+        if (tier != null) {
+            tier.put(key, page, now);
+            if (putsSinceEviction.incrementAndGet() >= DISK_EVICTION_INTERVAL) {
+                putsSinceEviction.set(0);
+                tier.evictOlderThan(now - ttlMillis);
+            }
+        }
+    }
+
+    /**
+     * Drops every page held in memory. Pages on the disk tier stay until they are evicted.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Wraps a search transport so that every page goes through this cache.
+     *
+     * @param delegate The transport used on misses.
+     * @return A caching search transport.
+     */
+    public VideoSearchTransport wrap(final VideoSearchTransport delegate) {
+        return new VideoSearchTransport() {
+            @Override
+            public VideoSearchPage fetchPage(String keyword, String filterDate, String cursor) {
+                VideoSearchPage page = get(keyword, filterDate, cursor);
+                if (page == null) {
+                    page = delegate.fetchPage(keyword, filterDate, cursor);
+                    put(keyword, filterDate, cursor, page);
+                }
+                return page;
+            }
+        };
+    }
+
+    public long getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    // Unit separator cannot appear in user typed keywords or cursors
+    private static String key(String keyword, String filterDate, String cursor) {
+        return keyword + '\u001f' + (filterDate != null ? filterDate : "") + '\u001f' + (cursor != null ? cursor : "");
+    }
+
+    private static final class CachedPage {
+        final VideoSearchPage page;
+        final long fetchedAt;
+
+        CachedPage(VideoSearchPage page, long fetchedAt) {
+            this.page = page;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
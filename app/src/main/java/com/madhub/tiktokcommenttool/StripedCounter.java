@@ -0,0 +1,45 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedCounter is a contention-friendly counter for hot paths.
+ * <p>
+ * Works like {@code java.util.concurrent.atomic.LongAdder}, which is only
+ * available from API 24 while the app supports API 21: increments are spread
+ * over several cache-line padded cells picked by the calling thread, and
+ * {@link #sum()} adds them up.
+ * </p>
+ */
+public final class StripedCounter {
+
+    private static final int STRIPES = 8;
+    // 8 longs = 64 bytes between cells, so every cell has its own cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment() {
+        add(1L);
+    }
+
+    public void add(long delta) {
+        cells.getAndAdd(cellIndex(), delta);
+    }
+
+    /**
+     * @return The current total. Not an atomic snapshot while other threads keep adding.
+     */
+    public long sum() {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            total += cells.get(i * PADDING);
+        }
+        return total;
+    }
+
+    private static int cellIndex() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id ^ (id >>> 16)) & (STRIPES - 1)) * PADDING;
+    }
+}
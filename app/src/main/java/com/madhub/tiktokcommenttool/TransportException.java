@@ -0,0 +1,42 @@
+package com.madhub.tiktokcommenttool;
+
+/**
+ * TransportException signals that a search or comment request could not be
+ * completed by a {@link VideoSearchTransport} or {@link CommentTransport}.
+ * <p>
+ * Failures are retryable unless the transport knows that repeating the same
+ * request cannot succeed, e.g. a rejected request.
+ * </p>
+ */
+public class TransportException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public TransportException(String message) {
+        this(message, true);
+    }
+
+    public TransportException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public TransportException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryable = true;
+    }
+
+    public TransportException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    /**
+     * @return true if the same request may succeed when sent again later.
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
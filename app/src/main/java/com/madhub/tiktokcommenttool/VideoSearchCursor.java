@@ -0,0 +1,76 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * VideoSearchCursor lazily walks through the result pages of a video search.
+ * <p>
+ * A page is only requested once the consumer asks for it, so posting can start
+ * as soon as the first page arrives, a slow consumer naturally holds back the
+ * search, and memory stays bounded by a single page no matter how many results
+ * the keyword has.
+ * </p>
+ */
+public class VideoSearchCursor implements Iterator<VideoSearchPage> {
+
+    private final VideoSearchTransport transport;
+    private final String keyword;
+    private final String filterDate;
+
+    // Cursor of the next page to fetch, null is the first page
+    private String cursor;
+    private boolean exhausted;
+
+    /**
+     * Creates a cursor starting at the first result page.
+     *
+     * @param transport Source of result pages.
+     * @param keyword The keyword to search videos.
+     * @param filterDate The publish date filter, or null for no filter.
+     */
+    public VideoSearchCursor(VideoSearchTransport transport, String keyword, String filterDate) {
+        this(transport, keyword, filterDate, null);
+    }
+
+    /**
+     * Creates a cursor resuming at a previously saved position.
+     *
+     * @param transport Source of result pages.
+     * @param keyword The keyword to search videos.
+     * @param filterDate The publish date filter, or null for no filter.
+     * @param startCursor Value of {@link #getCursor()} saved by an earlier run, or null to start over.
+     */
+    public VideoSearchCursor(VideoSearchTransport transport, String keyword, String filterDate, String startCursor) {
+        if (transport == null || keyword == null || keyword.isEmpty()) {
+            throw new IllegalArgumentException("Invalid parameters provided for the video search.");
+        }
+        this.transport = transport;
+        this.keyword = keyword;
+        this.filterDate = filterDate;
+        this.cursor = startCursor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !exhausted;
+    }
+
+    @Override
+    public VideoSearchPage next() {
+        if (exhausted) {
+            throw new NoSuchElementException("No more result pages for keyword: " + keyword);
+        }
+        VideoSearchPage page = transport.fetchPage(keyword, filterDate, cursor);
+        cursor = page.getNextCursor();
+        exhausted = !page.hasNextPage();
+        return page;
+    }
+
+    /**
+     * @return The position of the next page to fetch, to be persisted as a resume checkpoint.
+     */
+    public String getCursor() {
+        return cursor;
+    }
+}
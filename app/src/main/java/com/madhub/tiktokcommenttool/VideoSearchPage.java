@@ -0,0 +1,35 @@
+package com.madhub.tiktokcommenttool;
+
+/**
+ * VideoSearchPage is one page of video search results.
+ * Only a single page is held in memory at a time while a search is consumed.
+ */
+public final class VideoSearchPage {
+
+    private final String[] videoIds;
+    private final String nextCursor;
+
+    /**
+     * @param videoIds The video IDs on this page.
+     * @param nextCursor Opaque cursor of the following page, or null if this is the last page.
+     */
+    public VideoSearchPage(String[] videoIds, String nextCursor) {
+        if (videoIds == null) {
+            throw new IllegalArgumentException("Video IDs must not be null.");
+        }
+        this.videoIds = videoIds;
+        this.nextCursor = nextCursor;
+    }
+
+    public String[] getVideoIds() {
+        return videoIds;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNextPage() {
+        return nextCursor != null;
+    }
+}
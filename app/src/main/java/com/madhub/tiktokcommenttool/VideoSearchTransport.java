@@ -0,0 +1,20 @@
+package com.madhub.tiktokcommenttool;
+
+/**
+ * VideoSearchTransport fetches pages of video search results.
+ * Implementations perform the actual I/O, see {@link FakeCommentTransport} for
+ * an in-process implementation.
+ */
+public interface VideoSearchTransport {
+
+    /**
+     * Fetches a single page of search results.
+     *
+     * @param keyword The keyword to search videos.
+     * @param filterDate The publish date filter, or null for no filter.
+     * @param cursor The cursor of the page to fetch, or null for the first page.
+     * @return The requested page.
+     * @throws TransportException If the page could not be fetched.
+     */
+    VideoSearchPage fetchPage(String keyword, String filterDate, String cursor);
+}
@@ -0,0 +1,88 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ActionSchedulerTest {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final CommentPipeline.Job job = new CommentPipeline.Job("keyword", null, "comment", 1, null);
+
+    @Test
+    public void noWindowExceedsTheLimit() throws InterruptedException {
+        for (int limit : new int[]{1, 2, 10, 30, 100}) {
+            FakeClockScheduler scheduler = new FakeClockScheduler(limit);
+            List<Long> grants = new ArrayList<>();
+            for (int i = 0; i < limit * 3; i++) {
+                grants.add(scheduler.acquireAt());
+            }
+            // Idle long enough to fill the bucket, then spend it at once
+            scheduler.advance(WINDOW_NANOS * 5);
+            for (int i = 0; i < limit * 3; i++) {
+                grants.add(scheduler.acquireAt());
+            }
+            assertWindowsWithin(limit, grants);
+        }
+    }
+
+    @Test
+    public void keepsCloseToTheLimitWhileBusy() throws InterruptedException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(30);
+        long last = 0;
+        for (int i = 0; i < 30 * 10; i++) {
+            last = scheduler.acquireAt();
+        }
+        // The bucket starts empty and refills 27 per window
+        assertTrue(last <= WINDOW_NANOS * 12);
+    }
+
+    @Test
+    public void cancelledJobIsNotGranted() throws InterruptedException {
+        FakeClockScheduler scheduler = new FakeClockScheduler(10);
+        job.cancel();
+        assertFalse(scheduler.acquire(job));
+    }
+
+    private static void assertWindowsWithin(int limit, List<Long> grants) {
+        for (int i = 0; i + limit < grants.size(); i++) {
+            long span = grants.get(i + limit) - grants.get(i);
+            assertTrue("limit " + limit + ": " + (limit + 1) + " actions within " + span + "ns",
+                    span >= WINDOW_NANOS);
+        }
+    }
+
+    // Time only moves while the scheduler pauses, or when the test advances it
+    private final class FakeClockScheduler extends ActionScheduler {
+        private long nowNanos;
+
+        FakeClockScheduler(int actionsPerWindow) {
+            super(actionsPerWindow, TimeUnit.NANOSECONDS.toMillis(WINDOW_NANOS));
+        }
+
+        long acquireAt() throws InterruptedException {
+            assertTrue(acquire(job));
+            return nanoTime();
+        }
+
+        synchronized void advance(long nanos) {
+            nowNanos += nanos;
+        }
+
+        @Override
+        synchronized long nanoTime() {
+            return nowNanos;
+        }
+
+        @Override
+        void pause(long millis) {
+            nowNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private final CommentPipeline.Job job = new CommentPipeline.Job("keyword", null, "comment", 1, null);
+
+    @Test
+    public void opensOnceTheFailureRateIsReached() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 0.5, 10000L);
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void ignoredCallsNeverOpenIt() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 0.5, 10000L);
+        for (int i = 0; i < 20; i++) {
+            breaker.recordIgnored();
+        }
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeSuccessClosesIt() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(20L);
+        assertTrue(breaker.awaitPermission(job));
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeFailureOpensItAgain() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(20L);
+        assertTrue(breaker.awaitPermission(job));
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void ignoredProbeHandsThePermissionOn() throws InterruptedException {
+        CircuitBreaker breaker = openBreaker(20L);
+        assertTrue(breaker.awaitPermission(job));
+        breaker.recordIgnored();
+        // Would block for good if the probe slot were still taken
+        assertTrue(breaker.awaitPermission(job));
+        assertEquals(CircuitBreaker.HALF_OPEN, breaker.getState());
+    }
+
+    private static CircuitBreaker openBreaker(long openMillis) {
+        CircuitBreaker breaker = new CircuitBreaker(2, 0.5, openMillis);
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.OPEN, breaker.getState());
+        return breaker;
+    }
+}
@@ -0,0 +1,101 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives the post stage against a {@link FakeCommentTransport} with injected
+ * faults: retries, the circuit breaker and the dead letters.
+ */
+public class CommentPipelineFailureTest {
+
+    private static final String KEYWORD = "keyword";
+    private static final int VIDEOS = 10;
+
+    // Searches always work, comments fail as injected
+    private final FakeCommentTransport searchTransport = new FakeCommentTransport(1, VIDEOS, 0L, 0.0);
+    private final FakeCommentTransport commentTransport = new FakeCommentTransport(1, VIDEOS, 0L, 0.0);
+    private final RecordingDeadLetterStore deadLetters = new RecordingDeadLetterStore();
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 0.5, 50L);
+    private final CommentPipeline pipeline = new CommentPipeline(
+            new CommentEngine(searchTransport, commentTransport, null), new CommentPipeline.Config(1, 1, 2, 16));
+
+    @After
+    public void shutDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void retriesRideOutAShortOutage() throws InterruptedException {
+        configure(new RetryPolicy(10, 20L, 100L));
+        commentTransport.startOutage(200L);
+
+        CommentPipeline.Job job = run(2);
+
+        assertEquals(VIDEOS * 2, job.getCommentsPosted());
+        assertEquals(0, job.getFailedItems());
+        assertTrue(deadLetters.videoIds.isEmpty());
+    }
+
+    @Test
+    public void rejectedVideosAreDeadLetteredWithoutRetryOrOpeningTheBreaker() throws InterruptedException {
+        configure(new RetryPolicy(5, 10L, 50L));
+        for (int i = 1; i <= 6; i++) {
+            commentTransport.rejectVideo(FakeCommentTransport.videoId(KEYWORD, i));
+        }
+
+        CommentPipeline.Job job = run(1);
+
+        assertEquals(6, job.getFailedItems());
+        assertEquals(VIDEOS - 6, job.getCommentsPosted());
+        assertEquals(6, deadLetters.videoIds.size());
+        // One call per video, nothing was retried
+        assertEquals(VIDEOS, commentTransport.getPostCallCount());
+        assertEquals(CircuitBreaker.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void persistentOutageOpensTheBreakerAndDeadLettersEveryVideo() throws InterruptedException {
+        configure(new RetryPolicy(2, 1L, 5L));
+        commentTransport.startOutage(TimeUnit.MINUTES.toMillis(10));
+        StripedCounter opens = MetricsRegistry.getShared().counter(MetricsRegistry.CIRCUIT_OPENS);
+        long opensBefore = opens.sum();
+
+        CommentPipeline.Job job = run(1);
+
+        assertEquals(VIDEOS, job.getFailedItems());
+        assertEquals(0, job.getCommentsPosted());
+        assertEquals(VIDEOS, deadLetters.videoIds.size());
+        assertTrue(opens.sum() > opensBefore);
+    }
+
+    private void configure(RetryPolicy retryPolicy) {
+        pipeline.setRetryPolicy(retryPolicy);
+        pipeline.setCircuitBreaker(breaker);
+        pipeline.setDeadLetterStore(deadLetters);
+    }
+
+    private CommentPipeline.Job run(int commentCount) throws InterruptedException {
+        CommentPipeline.Job job = new CommentPipeline.Job(KEYWORD, null, "comment", commentCount, null);
+        pipeline.submit(job);
+        assertTrue("job did not finish", job.await(30, TimeUnit.SECONDS));
+        return job;
+    }
+
+    private static final class RecordingDeadLetterStore implements DeadLetterStore {
+        final List<String> videoIds = new ArrayList<>();
+
+        @Override
+        public synchronized void add(CommentPipeline.Job job, String videoId, int commentsPosted,
+                                     RuntimeException error) {
+            videoIds.add(videoId);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs persisted tasks through a real pipeline over {@link InMemoryTaskDao}.
+ */
+public class CommentTaskManagerTest {
+
+    private static final int VIDEOS = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Searches always work, comments fail as injected
+    private final FakeCommentTransport searchTransport = new FakeCommentTransport(1, VIDEOS, 0L, 0.0);
+    private final FakeCommentTransport transport = new FakeCommentTransport(1, VIDEOS, 0L, 0.0);
+    private final InMemoryTaskDao taskDao = new InMemoryTaskDao();
+    private final List<String> deadLetters = Collections.synchronizedList(new ArrayList<String>());
+    private CommentPipeline pipeline;
+    private CommentTaskManager manager;
+
+    @Before
+    public void setUp() {
+        pipeline = new CommentPipeline(new CommentEngine(searchTransport, transport, null),
+                new CommentPipeline.Config(1, 1, 2, 16));
+        pipeline.setRetryPolicy(new RetryPolicy(2, 1L, 5L));
+        pipeline.setDeadLetterStore(new DeadLetterStore() {
+            @Override
+            public void add(CommentPipeline.Job job, String videoId, int commentsPosted, RuntimeException error) {
+                deadLetters.add(videoId);
+            }
+        });
+        manager = new CommentTaskManager(taskDao, taskDao, pipeline, folder.getRoot());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+        pipeline.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void rejectedVideoIsDeadLetteredOnceAndTheTaskCompletes() {
+        String rejected = FakeCommentTransport.videoId("cats", 1);
+        transport.rejectVideo(rejected);
+        long callsBefore = transport.getPostCallCount();
+
+        manager.configureCommentSettings("comment", 2, "cats");
+        manager.executeCommentTask();
+
+        CommentTaskEntity task = taskDao.getAllTasks().get(0);
+        assertEquals(CommentTaskEntity.STATE_COMPLETED, task.state);
+        assertEquals(1, deadLetters.size());
+        long callsAfterRun = transport.getPostCallCount();
+        assertEquals((VIDEOS - 1) * 2 + 1, callsAfterRun - callsBefore);
+
+        // Nothing is left to resume, the rejected video is not posted on again
+        assertEquals(0, manager.resumePendingTasks());
+        assertEquals(1, deadLetters.size());
+        assertEquals(callsAfterRun, transport.getPostCallCount());
+    }
+
+    @Test
+    public void videosFailingWithRetryableErrorsStayPendingUntilResumed() {
+        transport.startOutage(TimeUnit.MINUTES.toMillis(10));
+        manager.configureCommentSettings("comment", 1, "dogs");
+        manager.executeCommentTask();
+
+        CommentTaskEntity task = taskDao.getAllTasks().get(0);
+        assertEquals(CommentTaskEntity.STATE_PENDING, task.state);
+        assertEquals(VIDEOS, deadLetters.size());
+
+        transport.stopOutage();
+        long callsBefore = transport.getPostCallCount();
+        assertEquals(1, manager.resumePendingTasks());
+
+        assertEquals(CommentTaskEntity.STATE_COMPLETED, taskDao.getTask(task.id).state);
+        assertEquals(VIDEOS, transport.getPostCallCount() - callsBefore);
+    }
+
+    @Test
+    public void resumeRacingTheInsertDoesNotRunTheNewTaskAgain() throws Exception {
+        final ExecutorService racer = Executors.newSingleThreadExecutor();
+        final AtomicReference<Future<Integer>> resume = new AtomicReference<>();
+        final AtomicReference<CommentTaskManager> racingManager = new AtomicReference<>();
+        // Starts a resume as soon as the task row exists and gives it time to run
+        InMemoryTaskDao racingDao = new InMemoryTaskDao() {
+            @Override
+            public long insertTask(CommentTaskEntity task) {
+                long id = super.insertTask(task);
+                final CommentTaskManager manager = racingManager.get();
+                Future<Integer> resumed = racer.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return manager.resumePendingTasks();
+                    }
+                });
+                resume.set(resumed);
+                try {
+                    resumed.get(200, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    // Still waiting for the transaction, as it should
+                }
+                return id;
+            }
+        };
+        racingManager.set(new CommentTaskManager(racingDao, racingDao, pipeline, folder.getRoot()));
+        try {
+            racingManager.get().configureCommentSettings("comment", 2, "birds");
+            racingManager.get().executeCommentTask();
+
+            assertEquals(0, resume.get().get(5, TimeUnit.SECONDS).intValue());
+            assertEquals(CommentTaskEntity.STATE_COMPLETED, racingDao.getAllTasks().get(0).state);
+            assertEquals(VIDEOS * 2, transport.getPostCallCount());
+        } finally {
+            racer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void resumeOnAnExecutorRunsEachPageAsItsOwnJob() throws IOException {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            file.append("keyword").append(i).append(",comment,1\n");
+        }
+        manager.importTasks(new StringReader(file.toString()), JobFileParser.FORMAT_CSV);
+
+        final Queue<Runnable> queued = new ArrayDeque<>();
+        manager.resumePendingTasks(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        });
+        int jobs = 0;
+        for (Runnable job; (job = queued.poll()) != null; jobs++) {
+            job.run();
+        }
+
+        // Two pages of up to 32 tasks, then one job that finds nothing left
+        assertEquals(3, jobs);
+        assertEquals(0, taskDao.countPendingTasks());
+        assertEquals(40L * VIDEOS, transport.getPostCallCount());
+    }
+}
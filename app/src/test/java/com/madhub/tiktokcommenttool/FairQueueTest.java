@@ -0,0 +1,59 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FairQueueTest {
+
+    @Test
+    public void ownersOfOnePriorityTakeTurns() {
+        FairQueue<String> queue = new FairQueue<>();
+        Object first = new Object();
+        Object second = new Object();
+        for (int i = 1; i <= 3; i++) {
+            queue.add(first, 0, "a" + i);
+        }
+        queue.add(second, 0, "b1");
+        queue.add(second, 0, "b2");
+
+        StringBuilder order = new StringBuilder();
+        while (!queue.isEmpty()) {
+            order.append(queue.poll()).append(' ');
+        }
+        assertEquals("a1 b1 a2 b2 a3 ", order.toString());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void higherPriorityGoesFirst() {
+        FairQueue<String> queue = new FairQueue<>();
+        Object low = new Object();
+        Object high = new Object();
+        queue.add(low, 0, "low1");
+        queue.add(low, 0, "low2");
+        queue.add(high, 5, "high1");
+
+        assertEquals("high1", queue.peek());
+        assertEquals("high1", queue.poll());
+        assertEquals("low1", queue.poll());
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void removedElementIsSkipped() {
+        FairQueue<String> queue = new FairQueue<>();
+        Object first = new Object();
+        Object second = new Object();
+        queue.add(first, 0, "a1");
+        queue.add(second, 0, "b1");
+        queue.add(first, 0, "a2");
+
+        assertTrue(queue.remove(first, 0, "a1"));
+        assertEquals("a2", queue.poll());
+        assertEquals("b1", queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,176 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpCommentTransportTest {
+
+    private MockWebServer server;
+    private HttpCommentTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        transport = new HttpCommentTransport(HttpCommentTransport.getSharedClient(), server.url("/v1/"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void searchFollowsTheCursorAcrossPages() throws InterruptedException {
+        // Unknown fields, nested values and nulls are skipped by the streaming reader
+        server.enqueue(json("{\"status\":\"ok\",\"videos\":[{\"id\":\"v1\",\"stats\":{\"likes\":[1,2]}},"
+                + "{\"id\":null},{\"id\":\"v2\"}],\"next_cursor\":\"page 2\",\"extra\":[{\"a\":true}]}"));
+        server.enqueue(json("{\"videos\":[{\"id\":\"v3\"}],\"next_cursor\":null}"));
+
+        VideoSearchCursor cursor = new CommentEngine(transport, transport, null).search("cats", "2024-01-01", null);
+        List<String> videoIds = new ArrayList<>();
+        while (cursor.hasNext()) {
+            videoIds.addAll(Arrays.asList(cursor.next().getVideoIds()));
+        }
+
+        assertEquals(Arrays.asList("v1", "v2", "v3"), videoIds);
+        assertNull(cursor.getCursor());
+
+        HttpUrl first = server.takeRequest().getRequestUrl();
+        assertEquals("/v1/search", first.encodedPath());
+        assertEquals("cats", first.queryParameter("keyword"));
+        assertEquals("2024-01-01", first.queryParameter("filter_date"));
+        assertNull(first.queryParameter("cursor"));
+        assertEquals("page 2", server.takeRequest().getRequestUrl().queryParameter("cursor"));
+    }
+
+    @Test
+    public void searchResumesFromASavedCursor() throws InterruptedException {
+        server.enqueue(json("{\"next_cursor\":\"page 4\",\"videos\":[{\"id\":\"v7\"}]}"));
+
+        VideoSearchCursor cursor = new CommentEngine(transport, transport, null).search("cats", null, "page 3");
+        VideoSearchPage page = cursor.next();
+
+        assertArrayEquals(new String[]{"v7"}, page.getVideoIds());
+        assertTrue(cursor.hasNext());
+        assertEquals("page 4", cursor.getCursor());
+        HttpUrl url = server.takeRequest().getRequestUrl();
+        assertEquals("page 3", url.queryParameter("cursor"));
+        assertNull(url.queryParameter("filter_date"));
+    }
+
+    @Test
+    public void malformedResponsesAreNotRetryable() {
+        server.enqueue(json("{\"videos\":[\"v1\"]}"));
+        server.enqueue(json("{\"comments\":[{\"author\" \"a\"}]}"));
+        try {
+            transport.fetchPage("cats", null, null);
+            fail("Expected a TransportException");
+        } catch (TransportException e) {
+            assertFalse(e.isRetryable());
+        }
+        try {
+            transport.fetchCommentAuthors("v1", 5);
+            fail("Expected a TransportException");
+        } catch (TransportException e) {
+            assertFalse(e.isRetryable());
+        }
+    }
+
+    @Test
+    public void searchServerErrorsAndThrottlingAreRetryable() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        assertTrue(searchFailure().isRetryable());
+        assertTrue(searchFailure().isRetryable());
+        assertFalse(searchFailure().isRetryable());
+    }
+
+    @Test
+    public void postIsOnlyRetryableWhenTheServerDidNotProcessIt() {
+        // OkHttp repeats a 408 once by itself, so it is left out here
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(429));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(504));
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        assertTrue(postFailure().isRetryable());
+        assertTrue(postFailure().isRetryable());
+        assertFalse(postFailure().isRetryable());
+        assertFalse(postFailure().isRetryable());
+        assertFalse(postFailure().isRetryable());
+    }
+
+    @Test
+    public void postLostAfterItWentOutIsNotRetryable() {
+        // The server may have stored the comment before the connection dropped
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST));
+
+        assertFalse(postFailure().isRetryable());
+    }
+
+    @Test
+    public void postThatCouldNotConnectIsRetryable() throws IOException {
+        HttpUrl closed = server.url("/v1/");
+        server.shutdown();
+        transport = new HttpCommentTransport(HttpCommentTransport.getSharedClient(), closed);
+
+        assertTrue(postFailure().isRetryable());
+    }
+
+    @Test
+    public void postSendsTheCommentAsJson() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        transport.postComment("v 1", "Nice \"video\"");
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/v1/videos/v%201/comments", request.getPath());
+        assertEquals("{\"text\":\"Nice \\\"video\\\"\"}", request.getBody().readUtf8());
+    }
+
+    private TransportException searchFailure() {
+        try {
+            transport.fetchPage("cats", null, null);
+        } catch (TransportException e) {
+            return e;
+        }
+        throw new AssertionError("Expected a TransportException");
+    }
+
+    private TransportException postFailure() {
+        try {
+            transport.postComment("v1", "hi");
+        } catch (TransportException e) {
+            return e;
+        }
+        throw new AssertionError("Expected a TransportException");
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
@@ -0,0 +1,194 @@
+package com.madhub.tiktokcommenttool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the task tables in memory, so {@link CommentTaskManager} runs on a plain JVM.
+ * Rows are copied in and out like Room does; the DAO lock doubles as the transaction.
+ */
+class InMemoryTaskDao implements CommentTaskDao, CommentTaskManager.Transactions {
+
+    private final Map<Long, CommentTaskEntity> tasks = new TreeMap<>();
+    private final Map<Long, LinkedHashMap<String, CommentWorkItemEntity>> workItems = new TreeMap<>();
+    private long nextTaskId = 1;
+    private long nextWorkItemId = 1;
+
+    @Override
+    public synchronized void runInTransaction(Runnable body) {
+        body.run();
+    }
+
+    @Override
+    public synchronized long insertTask(CommentTaskEntity task) {
+        CommentTaskEntity row = copy(task);
+        row.id = nextTaskId++;
+        tasks.put(row.id, row);
+        return row.id;
+    }
+
+    @Override
+    public synchronized long[] insertTasks(List<CommentTaskEntity> tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = insertTask(tasks.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized void updateTask(CommentTaskEntity task) {
+        if (tasks.containsKey(task.id)) {
+            tasks.put(task.id, copy(task));
+        }
+    }
+
+    @Override
+    public synchronized CommentTaskEntity getTask(long taskId) {
+        CommentTaskEntity row = tasks.get(taskId);
+        return row != null ? copy(row) : null;
+    }
+
+    @Override
+    public synchronized List<CommentTaskEntity> getPendingTasksAfter(long afterBatchId, long afterId, int limit) {
+        List<CommentTaskEntity> page = new ArrayList<>();
+        for (CommentTaskEntity row : tasks.values()) {
+            if (row.state == CommentTaskEntity.STATE_PENDING
+                    && (row.batchId > afterBatchId || (row.batchId == afterBatchId && row.id > afterId))) {
+                page.add(copy(row));
+            }
+        }
+        Collections.sort(page, new Comparator<CommentTaskEntity>() {
+            @Override
+            public int compare(CommentTaskEntity a, CommentTaskEntity b) {
+                int byBatch = Long.compare(a.batchId, b.batchId);
+                return byBatch != 0 ? byBatch : Long.compare(a.id, b.id);
+            }
+        });
+        return new ArrayList<>(page.subList(0, Math.min(limit, page.size())));
+    }
+
+    @Override
+    public synchronized int countPendingTasks() {
+        int count = 0;
+        for (CommentTaskEntity row : tasks.values()) {
+            if (row.state == CommentTaskEntity.STATE_PENDING) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void insertWorkItems(List<CommentWorkItemEntity> items) {
+        for (CommentWorkItemEntity item : items) {
+            LinkedHashMap<String, CommentWorkItemEntity> rows = workItems.get(item.taskId);
+            if (rows == null) {
+                rows = new LinkedHashMap<>();
+                workItems.put(item.taskId, rows);
+            }
+            if (!rows.containsKey(item.videoId)) {
+                CommentWorkItemEntity row = copy(item);
+                row.id = nextWorkItemId++;
+                rows.put(row.videoId, row);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void updateWorkItemProgress(long taskId, String videoId, int commentsPosted,
+                                                    boolean completed) {
+        CommentWorkItemEntity row = workItem(taskId, videoId);
+        if (row != null) {
+            row.commentsPosted = commentsPosted;
+            row.completed = completed;
+        }
+    }
+
+    @Override
+    public synchronized void completeWorkItem(long taskId, String videoId) {
+        CommentWorkItemEntity row = workItem(taskId, videoId);
+        if (row != null) {
+            row.completed = true;
+        }
+    }
+
+    @Override
+    public synchronized List<CommentWorkItemEntity> getPendingWorkItems(long taskId) {
+        List<CommentWorkItemEntity> result = new ArrayList<>();
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        if (rows != null) {
+            for (CommentWorkItemEntity row : rows.values()) {
+                if (!row.completed) {
+                    result.add(copy(row));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void deleteWorkItems(long taskId) {
+        workItems.remove(taskId);
+    }
+
+    @Override
+    public synchronized int deleteCompletedTasks(long createdBefore) {
+        int deleted = 0;
+        for (Iterator<CommentTaskEntity> it = tasks.values().iterator(); it.hasNext(); ) {
+            CommentTaskEntity row = it.next();
+            if (row.state == CommentTaskEntity.STATE_COMPLETED && row.createdAt < createdBefore) {
+                it.remove();
+                workItems.remove(row.id);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    synchronized List<CommentTaskEntity> getAllTasks() {
+        List<CommentTaskEntity> result = new ArrayList<>();
+        for (CommentTaskEntity row : tasks.values()) {
+            result.add(copy(row));
+        }
+        return result;
+    }
+
+    synchronized int countWorkItems(long taskId) {
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        return rows != null ? rows.size() : 0;
+    }
+
+    private CommentWorkItemEntity workItem(long taskId, String videoId) {
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        return rows != null ? rows.get(videoId) : null;
+    }
+
+    private static CommentTaskEntity copy(CommentTaskEntity task) {
+        CommentTaskEntity row = new CommentTaskEntity();
+        row.id = task.id;
+        row.batchId = task.batchId;
+        row.keyword = task.keyword;
+        row.commentContent = task.commentContent;
+        row.commentCount = task.commentCount;
+        row.searchCursor = task.searchCursor;
+        row.searchCompleted = task.searchCompleted;
+        row.state = task.state;
+        row.createdAt = task.createdAt;
+        return row;
+    }
+
+    private static CommentWorkItemEntity copy(CommentWorkItemEntity item) {
+        CommentWorkItemEntity row = CommentWorkItemEntity.create(item.taskId, item.videoId);
+        row.id = item.id;
+        row.commentsPosted = item.commentsPosted;
+        row.completed = item.completed;
+        return row;
+    }
+}
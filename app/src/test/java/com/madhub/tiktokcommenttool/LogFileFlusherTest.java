@@ -0,0 +1,55 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogFileFlusherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsRunningAfterAFailedWrite() throws IOException, InterruptedException {
+        // A plain file where the log directory should be makes every open fail
+        File directory = folder.newFile("logs");
+        File logFile = new File(directory, "comment.log");
+        LogRingBuffer ring = new LogRingBuffer(16);
+        LogFileFlusher flusher = new LogFileFlusher(ring, logFile);
+        flusher.start();
+        try {
+            ring.add(CommentLog.ERROR, "Test", "lost {}", 1, "record", null, 0L);
+            ring.wakeUp();
+            Thread.sleep(300);
+            assertTrue(flusher.isAlive());
+
+            assertTrue(directory.delete() && directory.mkdir());
+            ring.add(CommentLog.ERROR, "Test", "kept {}", 1, "record", null, 0L);
+
+            String contents = awaitContents(logFile, 10000L);
+            assertTrue(contents.contains("kept record"));
+            assertFalse(contents.contains("lost record"));
+        } finally {
+            flusher.shutdown();
+        }
+    }
+
+    private static String awaitContents(File file, long timeoutMillis) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (file.length() > 0) {
+                return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+            }
+            Thread.sleep(50);
+        }
+        return "";
+    }
+}
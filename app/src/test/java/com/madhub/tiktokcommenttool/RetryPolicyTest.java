@@ -0,0 +1,36 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 100L, 250L);
+
+    @Test
+    public void retriesTransientTransportFailuresUpToTheLimit() {
+        TransportException error = new TransportException("timeout");
+        assertTrue(policy.shouldRetry(error, 1));
+        assertTrue(policy.shouldRetry(error, 2));
+        assertFalse(policy.shouldRetry(error, 3));
+    }
+
+    @Test
+    public void neverRetriesRejectedRequestsOrOtherErrors() {
+        assertFalse(policy.shouldRetry(new TransportException("HTTP 400", false), 1));
+        assertFalse(policy.shouldRetry(new IllegalStateException("bug"), 1));
+    }
+
+    @Test
+    public void delaysStayWithinTheCappedBackoff() {
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long cap = Math.min(250L, 100L << (attempt - 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = policy.delayMillis(attempt);
+                assertTrue(delay >= 0 && delay <= cap);
+            }
+        }
+    }
+}
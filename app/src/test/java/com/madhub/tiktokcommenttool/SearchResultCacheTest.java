@@ -0,0 +1,54 @@
+package com.madhub.tiktokcommenttool;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchResultCacheTest {
+
+    private static final long TTL_MILLIS = 60000L;
+
+    @Test
+    public void evictsExpiredDiskPagesWhilePagesAreAdded() {
+        RecordingTier tier = new RecordingTier();
+        SearchResultCache cache = new SearchResultCache(16, TTL_MILLIS);
+        cache.setDiskTier(tier);
+        VideoSearchPage page = new VideoSearchPage(new String[]{"v1"}, null);
+
+        for (int i = 1; i < SearchResultCache.DISK_EVICTION_INTERVAL; i++) {
+            cache.put("keyword" + i, null, null, page);
+        }
+        assertTrue(tier.evictions.isEmpty());
+
+        long before = System.currentTimeMillis();
+        cache.put("last", null, null, page);
+        long after = System.currentTimeMillis();
+
+        assertEquals(1, tier.evictions.size());
+        long minFetchedAt = tier.evictions.get(0);
+        assertTrue(minFetchedAt >= before - TTL_MILLIS && minFetchedAt <= after - TTL_MILLIS);
+    }
+
+    private static final class RecordingTier implements SearchResultCache.DiskTier {
+        final List<Long> evictions = new ArrayList<>();
+
+        @Override
+        public VideoSearchPage get(String key, long minFetchedAt) {
+            return null;
+        }
+
+        @Override
+        public void put(String key, VideoSearchPage page, long fetchedAt) {
+        }
+
+        @Override
+        public int evictOlderThan(long minFetchedAt) {
+            evictions.add(minFetchedAt);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.madhub.tiktokcommenttool.benchmarks;
+
+import com.madhub.tiktokcommenttool.CommentEngine;
+import com.madhub.tiktokcommenttool.FakeCommentTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting comment authors through {@link CommentEngine}, the path
+ * behind {@code CommentCommonUtils.collectUsersFromCommentSections}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CollectUsersBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int userCountLimit;
+
+    private CommentEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Few authors per video, so large limits walk many videos and pages
+        FakeCommentTransport transport = new FakeCommentTransport(1000, 20, 0L, 0.0);
+        engine = new CommentEngine(transport, transport, null);
+    }
+
+    @Benchmark
+    public List<String> collectUsers() {
+        return engine.collectUsers("keyword", userCountLimit);
+    }
+}
@@ -0,0 +1,75 @@
+package com.madhub.tiktokcommenttool.benchmarks;
+
+import com.madhub.tiktokcommenttool.CommentEngine;
+import com.madhub.tiktokcommenttool.CommentLog;
+import com.madhub.tiktokcommenttool.FakeCommentTransport;
+import com.madhub.tiktokcommenttool.SearchResultCache;
+import com.madhub.tiktokcommenttool.VideoSearchPage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fixed overhead paid for every single item: one post, the debug
+ * message built around it, and one search cache lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PerItemBenchmark {
+
+    private CommentEngine engine;
+    private SearchResultCache cache;
+    private String videoId;
+    private String commentContent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        FakeCommentTransport transport = new FakeCommentTransport();
+        engine = new CommentEngine(transport, transport, null);
+        cache = new SearchResultCache(256, TimeUnit.MINUTES.toMillis(10));
+        cache.put("keyword", null, null, new VideoSearchPage(new String[]{"video1"}, null));
+        videoId = "video1";
+        CommentLog.setMinLevel(CommentLog.INFO);
+        commentContent = "comment";
+    }
+
+    @Benchmark
+    public void postComment() {
+        engine.postComment(videoId, commentContent);
+    }
+
+    @Benchmark
+    public void postCommentWithLogMessage(Blackhole blackhole) {
+        engine.postComment(videoId, commentContent);
+        blackhole.consume("Posting comment on " + videoId + ": " + commentContent);
+    }
+
+    /**
+     * The same message through {@link CommentLog} with debug logging off, which should cost nothing.
+     */
+    @Benchmark
+    public void postCommentWithDisabledCommentLog() {
+        engine.postComment(videoId, commentContent);
+        CommentLog.d("PerItemBenchmark", "Posting comment on {}: {}", videoId, commentContent);
+    }
+
+    @Benchmark
+    public VideoSearchPage cacheHit() {
+        return cache.get("keyword", null, null);
+    }
+
+    @Benchmark
+    public VideoSearchPage cacheMiss() {
+        return cache.get("missing", null, null);
+    }
+}
@@ -0,0 +1,154 @@
+package com.madhub.tiktokcommenttool.benchmarks;
+
+import com.madhub.tiktokcommenttool.ActionScheduler;
+import com.madhub.tiktokcommenttool.CircuitBreaker;
+import com.madhub.tiktokcommenttool.CommentEngine;
+import com.madhub.tiktokcommenttool.CommentPipeline;
+import com.madhub.tiktokcommenttool.DeadLetterStore;
+import com.madhub.tiktokcommenttool.FakeCommentTransport;
+import com.madhub.tiktokcommenttool.ProcessedVideoIndex;
+import com.madhub.tiktokcommenttool.RetryPolicy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures jobs through {@link CommentPipeline}, the path the app ships, wired
+ * like {@code CommentPipelineFactory}: processed video index, action scheduler,
+ * retry policy, circuit breaker and dead-letter store. Search and post stage
+ * concurrency are parameters, so the effect of more workers can be compared
+ * with the single-threaded {@link PostCommentsBenchmark} baseline.
+ * <p>
+ * The scheduler limit is far above what the fake transport can reach, so it
+ * costs its bookkeeping without pacing anything.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PipelineBenchmark {
+
+    private static final int VIDEOS_PER_PAGE = 20;
+    private static final int COMMENTS_PER_VIDEO = 1;
+    private static final int QUEUE_CAPACITY = 64;
+
+    // Jobs submitted together by every operation
+    private static final int JOBS = 4;
+
+    // Number of videos every job posts on
+    @Param({"1000", "10000"})
+    public int itemCount;
+
+    // Simulated network latency per call
+    @Param({"0", "100"})
+    public long latencyMicros;
+
+    // Jobs searched at the same time
+    @Param({"1", "4"})
+    public int searchWorkers;
+
+    // Videos posted on at the same time
+    @Param({"1", "4", "16"})
+    public int postWorkers;
+
+    private CommentPipeline pipeline;
+    private String[] keywords;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int pages = Math.max(1, itemCount / VIDEOS_PER_PAGE);
+        FakeCommentTransport transport = new FakeCommentTransport(pages, VIDEOS_PER_PAGE, latencyMicros, 0.0);
+        // No cache, every job pays for its search
+        CommentEngine engine = new CommentEngine(transport, transport, null);
+        pipeline = new CommentPipeline(engine,
+                new CommentPipeline.Config(searchWorkers, 1, postWorkers, QUEUE_CAPACITY));
+        pipeline.setActionScheduler(new ActionScheduler(Integer.MAX_VALUE, 1000L));
+        pipeline.setRetryPolicy(RetryPolicy.DEFAULT);
+        pipeline.setCircuitBreaker(new CircuitBreaker(20, 0.5, 10000L));
+        pipeline.setDeadLetterStore(new DeadLetterStore() {
+            @Override
+            public void add(CommentPipeline.Job job, String videoId, int commentsPosted, RuntimeException error) {
+                // The transport never fails
+            }
+        });
+        keywords = new String[JOBS];
+        for (int i = 0; i < JOBS; i++) {
+            keywords[i] = "keyword" + i;
+        }
+    }
+
+    // Every operation posts on the same videos again, so it starts with an empty history
+    @Setup(Level.Invocation)
+    public void resetIndex() {
+        pipeline.setProcessedVideoIndex(new ProcessedVideoIndex(new MemoryStore(), itemCount * JOBS));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+        pipeline.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void runJobs(Blackhole blackhole) throws InterruptedException {
+        List<CommentPipeline.Job> jobs = new ArrayList<>(JOBS);
+        for (String keyword : keywords) {
+            jobs.add(pipeline.submit(new CommentPipeline.Job(keyword, null, "comment", COMMENTS_PER_VIDEO, null)));
+        }
+        for (CommentPipeline.Job job : jobs) {
+            job.await();
+            blackhole.consume(job.getCommentsPosted());
+        }
+    }
+
+    // Stands in for the Room table of processed videos
+    private static final class MemoryStore implements ProcessedVideoIndex.Store {
+        private final NavigableSet<Long> hashes = new ConcurrentSkipListSet<>();
+
+        @Override
+        public boolean contains(long idHash) {
+            return hashes.contains(idHash);
+        }
+
+        @Override
+        public void addAll(List<Long> idHashes, long processedAt) {
+            hashes.addAll(idHashes);
+        }
+
+        @Override
+        public long[] loadPage(long fromHash, int limit) {
+            List<Long> page = new ArrayList<>(limit);
+            for (Long hash : hashes.tailSet(fromHash, true)) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(hash);
+            }
+            long[] result = new long[page.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = page.get(i);
+            }
+            return result;
+        }
+
+        @Override
+        public long count() {
+            return hashes.size();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.madhub.tiktokcommenttool.benchmarks;
+
+import com.madhub.tiktokcommenttool.CommentEngine;
+import com.madhub.tiktokcommenttool.FakeCommentTransport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures whole search-then-post jobs through {@link CommentEngine} against a
+ * simulated transport, for growing item counts and parallel job counts.
+ * <p>
+ * Throughput mode reports jobs per second, sample mode reports latency
+ * percentiles per job, and the gc profiler configured in build.gradle reports
+ * the allocation rate.
+ * </p>
+ * <p>
+ * The engine runs a job on the calling thread without queues, pacing or
+ * retries, so this is the micro baseline for {@link PipelineBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PostCommentsBenchmark {
+
+    private static final int VIDEOS_PER_PAGE = 20;
+    private static final int COMMENTS_PER_VIDEO = 1;
+
+    // Number of videos every job posts on
+    @Param({"100", "1000", "10000"})
+    public int itemCount;
+
+    // Number of jobs running at the same time
+    @Param({"1", "4"})
+    public int parallelism;
+
+    // Simulated network latency per call
+    @Param({"0", "100"})
+    public long latencyMicros;
+
+    private ExecutorService executor;
+    private CommentEngine engine;
+    private String[] keywords;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int pages = Math.max(1, itemCount / VIDEOS_PER_PAGE);
+        FakeCommentTransport transport = new FakeCommentTransport(pages, VIDEOS_PER_PAGE, latencyMicros, 0.0);
+        // No cache, every job pays for its search
+        engine = new CommentEngine(transport, transport, null);
+        executor = Executors.newFixedThreadPool(parallelism);
+        keywords = new String[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            keywords[i] = "keyword" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void runJobs(Blackhole blackhole) throws Exception {
+        if (parallelism == 1) {
+            blackhole.consume(engine.runJob(keywords[0], null, "comment", COMMENTS_PER_VIDEO, null));
+            return;
+        }
+        List<Future<Integer>> results = new ArrayList<>(parallelism);
+        for (final String keyword : keywords) {
+            results.add(executor.submit(() -> engine.runJob(keyword, null, "comment", COMMENTS_PER_VIDEO, null)));
+        }
+        for (Future<Integer> result : results) {
+            blackhole.consume(result.get());
+        }
+    }
+
+    /**
+     * Same job with the per-item debug message the app builds today, to show
+     * what string building costs on the hot path.
+     */
+    @Benchmark
+    public int runJobWithItemLogging(final Blackhole blackhole) {
+        final String commentContent = "comment";
+        return engine.runJob(keywords[0], null, commentContent, COMMENTS_PER_VIDEO,
+                new CommentEngine.JobListener() {
+                    @Override
+                    public void onCommentPosted(String videoId, int commentIndex) {
+                        blackhole.consume("Posting comment: '" + commentContent + "' on video ID: " + videoId);
+                    }
+                });
+    }
+}
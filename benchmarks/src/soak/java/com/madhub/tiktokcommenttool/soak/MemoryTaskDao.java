@@ -0,0 +1,210 @@
+package com.madhub.tiktokcommenttool.soak;
+
+import com.madhub.tiktokcommenttool.CommentTaskDao;
+import com.madhub.tiktokcommenttool.CommentTaskEntity;
+import com.madhub.tiktokcommenttool.CommentTaskManager;
+import com.madhub.tiktokcommenttool.CommentWorkItemEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for the task tables of {@code CommentDatabase}, so the soak
+ * test drives the real {@link CommentTaskManager} without Android.
+ * <p>
+ * Rows are copied in and out like Room does, so the manager never shares an
+ * entity with the table. Every method holds the DAO lock, which also serves as
+ * the transaction: one transaction runs at a time, as on SQLite.
+ * </p>
+ * <p>
+ * On the device completed tasks stay on disk for a week before they are pruned,
+ * longer than any soak run. Here they are only counted, so the heap holds the
+ * open tasks alone and anything else that grows is a leak.
+ * </p>
+ */
+final class MemoryTaskDao implements CommentTaskDao, CommentTaskManager.Transactions {
+
+    // Same order as the resume query: batch first, then id
+    private static final Comparator<CommentTaskEntity> BATCH_ORDER = new Comparator<CommentTaskEntity>() {
+        @Override
+        public int compare(CommentTaskEntity a, CommentTaskEntity b) {
+            int byBatch = Long.compare(a.batchId, b.batchId);
+            return byBatch != 0 ? byBatch : Long.compare(a.id, b.id);
+        }
+    };
+
+    // Open tasks by id, guarded by "this"
+    private final Map<Long, CommentTaskEntity> tasks = new HashMap<>();
+
+    // Work items of the open tasks by task id, then video id in insertion order, guarded by "this"
+    private final Map<Long, LinkedHashMap<String, CommentWorkItemEntity>> workItems = new HashMap<>();
+
+    private long nextTaskId = 1;
+    private long nextWorkItemId = 1;
+    private long completedTasks;
+
+    @Override
+    public synchronized void runInTransaction(Runnable body) {
+        body.run();
+    }
+
+    @Override
+    public synchronized long insertTask(CommentTaskEntity task) {
+        CommentTaskEntity row = copy(task);
+        row.id = nextTaskId++;
+        store(row);
+        return row.id;
+    }
+
+    @Override
+    public synchronized long[] insertTasks(List<CommentTaskEntity> tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = insertTask(tasks.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public synchronized void updateTask(CommentTaskEntity task) {
+        if (tasks.containsKey(task.id)) {
+            store(copy(task));
+        }
+    }
+
+    @Override
+    public synchronized CommentTaskEntity getTask(long taskId) {
+        CommentTaskEntity row = tasks.get(taskId);
+        return row != null ? copy(row) : null;
+    }
+
+    @Override
+    public synchronized List<CommentTaskEntity> getPendingTasksAfter(long afterBatchId, long afterId, int limit) {
+        List<CommentTaskEntity> page = new ArrayList<>();
+        for (CommentTaskEntity row : tasks.values()) {
+            if (row.batchId > afterBatchId || (row.batchId == afterBatchId && row.id > afterId)) {
+                page.add(row);
+            }
+        }
+        Collections.sort(page, BATCH_ORDER);
+        List<CommentTaskEntity> result = new ArrayList<>(Math.min(limit, page.size()));
+        for (CommentTaskEntity row : page.subList(0, Math.min(limit, page.size()))) {
+            result.add(copy(row));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int countPendingTasks() {
+        return tasks.size();
+    }
+
+    @Override
+    public synchronized void insertWorkItems(List<CommentWorkItemEntity> items) {
+        for (CommentWorkItemEntity item : items) {
+            if (!tasks.containsKey(item.taskId)) {
+                // The foreign key rejects items of a deleted task
+                continue;
+            }
+            LinkedHashMap<String, CommentWorkItemEntity> rows = workItems.get(item.taskId);
+            if (rows == null) {
+                rows = new LinkedHashMap<>();
+                workItems.put(item.taskId, rows);
+            }
+            if (!rows.containsKey(item.videoId)) {
+                CommentWorkItemEntity row = copy(item);
+                row.id = nextWorkItemId++;
+                rows.put(row.videoId, row);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void updateWorkItemProgress(long taskId, String videoId, int commentsPosted,
+                                                    boolean completed) {
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        CommentWorkItemEntity row = rows != null ? rows.get(videoId) : null;
+        if (row != null) {
+            row.commentsPosted = commentsPosted;
+            row.completed = completed;
+        }
+    }
+
+    @Override
+    public synchronized void completeWorkItem(long taskId, String videoId) {
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        CommentWorkItemEntity row = rows != null ? rows.get(videoId) : null;
+        if (row != null) {
+            row.completed = true;
+        }
+    }
+
+    @Override
+    public synchronized List<CommentWorkItemEntity> getPendingWorkItems(long taskId) {
+        Map<String, CommentWorkItemEntity> rows = workItems.get(taskId);
+        if (rows == null) {
+            return Collections.emptyList();
+        }
+        List<CommentWorkItemEntity> result = new ArrayList<>();
+        for (CommentWorkItemEntity row : rows.values()) {
+            if (!row.completed) {
+                result.add(copy(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void deleteWorkItems(long taskId) {
+        workItems.remove(taskId);
+    }
+
+    @Override
+    public synchronized int deleteCompletedTasks(long createdBefore) {
+        // Completed tasks are never kept, see the class comment
+        return 0;
+    }
+
+    synchronized long getCompletedTaskCount() {
+        return completedTasks;
+    }
+
+    // Keeps an open task, or counts and drops a completed one together with its work items
+    private void store(CommentTaskEntity row) {
+        if (row.state == CommentTaskEntity.STATE_COMPLETED) {
+            if (tasks.remove(row.id) != null) {
+                workItems.remove(row.id);
+                completedTasks++;
+            }
+        } else {
+            tasks.put(row.id, row);
+        }
+    }
+
+    private static CommentTaskEntity copy(CommentTaskEntity task) {
+        CommentTaskEntity row = new CommentTaskEntity();
+        row.id = task.id;
+        row.batchId = task.batchId;
+        row.keyword = task.keyword;
+        row.commentContent = task.commentContent;
+        row.commentCount = task.commentCount;
+        row.searchCursor = task.searchCursor;
+        row.searchCompleted = task.searchCompleted;
+        row.state = task.state;
+        row.createdAt = task.createdAt;
+        return row;
+    }
+
+    private static CommentWorkItemEntity copy(CommentWorkItemEntity item) {
+        CommentWorkItemEntity row = CommentWorkItemEntity.create(item.taskId, item.videoId);
+        row.id = item.id;
+        row.commentsPosted = item.commentsPosted;
+        row.completed = item.completed;
+        return row;
+    }
+}
@@ -0,0 +1,84 @@
+package com.madhub.tiktokcommenttool.soak;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One measurement of the soak run, taken at a fixed interval.
+ */
+final class SoakSample {
+
+    static final String CSV_HEADER = "elapsed_s,heap_mb,processed_videos_mb,threads,gc_fraction,comments_per_s";
+
+    final long elapsedSeconds;
+    // Heap in use right after a full collection, so garbage does not count, minus processedVideosMb
+    final double heapMb;
+    // Heap the processed videos are expected to take, grows with the work done
+    final double processedVideosMb;
+    final int threads;
+    // Share of the interval spent in garbage collection
+    final double gcFraction;
+    final double commentsPerSecond;
+
+    private SoakSample(long elapsedSeconds, double heapMb, double processedVideosMb, int threads, double gcFraction,
+                       double commentsPerSecond) {
+        this.elapsedSeconds = elapsedSeconds;
+        this.heapMb = heapMb;
+        this.processedVideosMb = processedVideosMb;
+        this.threads = threads;
+        this.gcFraction = gcFraction;
+        this.commentsPerSecond = commentsPerSecond;
+    }
+
+    /**
+     * Keeps the counters of the previous sample to compute per-interval rates.
+     */
+    static final class Sampler {
+        private final long startNanos = System.nanoTime();
+        private long lastNanos = startNanos;
+        private long lastGcMillis = totalGcMillis();
+        private long lastComments;
+
+        /**
+         * @param commentsPosted Comments posted since the start.
+         * @param processedVideoBytes Heap the processed videos are expected to take, not counted as heap.
+         */
+        SoakSample take(long commentsPosted, long processedVideoBytes) {
+            // GC time of the forced collection below is not part of the interval
+            long gcMillis = totalGcMillis();
+            long now = System.nanoTime();
+            double intervalMillis = Math.max(1, (now - lastNanos) / 1e6);
+
+            double gcFraction = (gcMillis - lastGcMillis) / intervalMillis;
+            double commentsPerSecond = (commentsPosted - lastComments) * 1000.0 / intervalMillis;
+
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            double processedVideosMb = processedVideoBytes / (1024.0 * 1024.0);
+            double heapMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0) - processedVideosMb;
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            lastNanos = System.nanoTime();
+            lastGcMillis = totalGcMillis();
+            lastComments = commentsPosted;
+            return new SoakSample((now - startNanos) / 1000000000L, heapMb, processedVideosMb, threads, gcFraction,
+                    commentsPerSecond);
+        }
+
+        private static long totalGcMillis() {
+            long total = 0;
+            List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+            for (GarbageCollectorMXBean collector : collectors) {
+                total += Math.max(0, collector.getCollectionTime());
+            }
+            return total;
+        }
+    }
+
+    String toCsv() {
+        return String.format(Locale.US, "%d,%.2f,%.2f,%d,%.4f,%.1f", elapsedSeconds, heapMb, processedVideosMb, threads,
+                gcFraction, commentsPerSecond);
+    }
+}
@@ -0,0 +1,95 @@
+package com.madhub.tiktokcommenttool.soak;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SoakTest runs {@link SoakWorkload} for a configurable time, samples heap,
+ * thread count, GC time and throughput, and exits with status 1 if any of them
+ * keeps trending the wrong way. The heap the processed videos are expected to
+ * take is sampled on its own and left out of the heap trend.
+ * <p>
+ * Run with {@code ./gradlew :benchmarks:soak -PsoakMinutes=240}. Samples are
+ * printed and written as CSV to {@code build/soak/samples.csv}.
+ * </p>
+ * <p>
+ * Arguments: duration in minutes, sample interval in seconds, actions per
+ * minute, minutes between outages (0 for none), outage length in seconds.
+ * </p>
+ */
+public final class SoakTest {
+
+    // Share of the samples ignored at the start while JIT and caches settle
+    private static final double WARM_UP_FRACTION = 0.2;
+
+    private SoakTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long minutes = args.length > 0 ? Long.parseLong(args[0]) : 60;
+        long sampleSeconds = args.length > 1 ? Long.parseLong(args[1]) : 30;
+        int actionsPerMinute = args.length > 2 ? Integer.parseInt(args[2]) : 60000;
+        long outageEveryMinutes = args.length > 3 ? Long.parseLong(args[3]) : 5;
+        long outageSeconds = args.length > 4 ? Long.parseLong(args[4]) : 2;
+        File output = new File(args.length > 5 ? args[5] : "build/soak");
+        if (minutes <= 0 || sampleSeconds <= 0 || actionsPerMinute <= 0 || outageEveryMinutes < 0 || outageSeconds < 0) {
+            throw new IllegalArgumentException("Invalid parameters provided for the soak test.");
+        }
+
+        output.mkdirs();
+        SoakWorkload workload = new SoakWorkload(actionsPerMinute, output,
+                TimeUnit.MINUTES.toMillis(outageEveryMinutes), TimeUnit.SECONDS.toMillis(outageSeconds));
+        List<SoakSample> samples = new ArrayList<>();
+        SoakSample.Sampler sampler = new SoakSample.Sampler();
+        long endNanos = System.nanoTime() + TimeUnit.MINUTES.toNanos(minutes);
+
+        PrintWriter csv = new PrintWriter(new FileWriter(new File(output, "samples.csv")));
+        try {
+            csv.println(SoakSample.CSV_HEADER);
+            System.out.println(SoakSample.CSV_HEADER);
+            workload.start();
+            while (System.nanoTime() < endNanos) {
+                TimeUnit.SECONDS.sleep(sampleSeconds);
+                SoakSample sample = sampler.take(workload.getCommentsPosted(), workload.getProcessedVideoBytes());
+                samples.add(sample);
+                csv.println(sample.toCsv());
+                csv.flush();
+                System.out.println(sample.toCsv());
+            }
+        } finally {
+            workload.stop();
+            csv.close();
+        }
+
+        List<SoakSample> measured = samples.subList((int) (samples.size() * WARM_UP_FRACTION), samples.size());
+        System.out.println("Comments posted: " + workload.getCommentsPosted()
+                + ", tasks completed: " + workload.getCompletedTasks()
+                + ", dead letters: " + workload.getDeadLetters());
+        if (measured.size() < TrendCheck.MIN_SAMPLES) {
+            System.out.println("Too few samples to judge trends, run longer or sample more often.");
+            return;
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (TrendCheck check : TrendCheck.defaults()) {
+            String failure = check.check(measured);
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        if (workload.getCommentsPosted() == 0) {
+            failures.add("No comment was posted");
+        }
+        for (String failure : failures) {
+            System.out.println("FAIL " + failure);
+        }
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+        System.out.println("Soak test passed");
+    }
+}
@@ -0,0 +1,332 @@
+package com.madhub.tiktokcommenttool.soak;
+
+import com.madhub.tiktokcommenttool.ActionScheduler;
+import com.madhub.tiktokcommenttool.CircuitBreaker;
+import com.madhub.tiktokcommenttool.CommentEngine;
+import com.madhub.tiktokcommenttool.CommentPipeline;
+import com.madhub.tiktokcommenttool.CommentTaskExecutor;
+import com.madhub.tiktokcommenttool.CommentTaskManager;
+import com.madhub.tiktokcommenttool.DeadLetterStore;
+import com.madhub.tiktokcommenttool.FakeCommentTransport;
+import com.madhub.tiktokcommenttool.JobFileParser;
+import com.madhub.tiktokcommenttool.ProcessedVideoIndex;
+import com.madhub.tiktokcommenttool.RetryPolicy;
+import com.madhub.tiktokcommenttool.SearchResultCache;
+import com.madhub.tiktokcommenttool.VideoSearchPage;
+import com.madhub.tiktokcommenttool.VideoSearchTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SoakWorkload keeps the app's task path busy until stopped.
+ * <p>
+ * Starts are fed to a {@link CommentTaskExecutor} sized like the one of
+ * {@code CommentWorkerService}, and each start runs on a fresh
+ * {@link CommentTaskManager}, as the service creates them. The starts take
+ * turns between:
+ * <ul>
+ *     <li>a multi-keyword batch through {@code executeCommentBatch};</li>
+ *     <li>a single task through {@code executeCommentTask};</li>
+ *     <li>an import of a few JSON lines jobs followed by {@code resumePendingTasks},
+ *     which also picks up tasks left pending by failed videos.</li>
+ * </ul>
+ * The manager runs on a pipeline wired like {@code CommentPipelineFactory} does
+ * on the device, over {@link MemoryTaskDao} and an in-memory table of processed
+ * videos. The processed video index starts at its default capacity and grows
+ * during the run by reloading that table page by page.
+ * </p>
+ * <p>
+ * Every keyword is new, so searches, cache entries and video IDs never repeat
+ * and anything kept per task would show up as heap growth. The simulated
+ * transport fails a small fraction of calls and goes through periodic outages.
+ * </p>
+ */
+final class SoakWorkload {
+
+    private static final int PAGES_PER_SEARCH = 5;
+    private static final int VIDEOS_PER_PAGE = 20;
+    private static final long LATENCY_MICROS = 200;
+    private static final double ERROR_RATE = 0.001;
+
+    // Like CommentWorkerService
+    private static final int PARALLELISM = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    // Capacity RoomProcessedVideoStore gives the shared index
+    private static final long INDEX_INITIAL_CAPACITY = 100000;
+
+    private static final int BATCH_KEYWORDS = 8;
+    private static final int IMPORTED_JOBS = 4;
+    // Kinds of start, see the class comment
+    private static final int START_KINDS = 3;
+
+    private final FakeCommentTransport transport;
+    private final CommentPipeline pipeline;
+    private final ProcessedVideoIndex index;
+    private final SortedHashStore processedVideos = new SortedHashStore();
+    private final MemoryTaskDao taskDao = new MemoryTaskDao();
+    private final CommentTaskExecutor executor;
+    private final File filesDir;
+    private final long outageEveryMillis;
+    private final long outageMillis;
+
+    // Keeps the executor's queue filled without overflowing it
+    private final Semaphore openStarts = new Semaphore(PARALLELISM + QUEUE_CAPACITY / 2);
+    private final ExecutorService feeder = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService outages = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong keywordCounter = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private volatile boolean running;
+
+    /**
+     * @param actionsPerMinute Limit of the action scheduler.
+     * @param filesDir Directory the task manager writes its metrics to.
+     * @param outageEveryMillis Time between two simulated outages.
+     * @param outageMillis Length of each outage.
+     */
+    SoakWorkload(int actionsPerMinute, File filesDir, long outageEveryMillis, long outageMillis) {
+        this.filesDir = filesDir;
+        this.outageEveryMillis = outageEveryMillis;
+        this.outageMillis = outageMillis;
+        transport = new FakeCommentTransport(PAGES_PER_SEARCH, VIDEOS_PER_PAGE, LATENCY_MICROS, ERROR_RATE);
+        CommentEngine engine = new CommentEngine(new PerKeywordIds(transport), transport,
+                new SearchResultCache(256, TimeUnit.MINUTES.toMillis(10)));
+
+        pipeline = new CommentPipeline(engine, CommentPipeline.Config.DEFAULT);
+        index = new ProcessedVideoIndex(processedVideos, INDEX_INITIAL_CAPACITY);
+        pipeline.setProcessedVideoIndex(index);
+        pipeline.setActionScheduler(new ActionScheduler(actionsPerMinute, TimeUnit.MINUTES.toMillis(1)));
+        pipeline.setRetryPolicy(new RetryPolicy(4, 50L, 1000L));
+        pipeline.setCircuitBreaker(new CircuitBreaker(20, 0.5, 2000L));
+        pipeline.setDeadLetterStore(new DeadLetterStore() {
+            @Override
+            public void add(CommentPipeline.Job job, String videoId, int commentsPosted, RuntimeException error) {
+                deadLetters.incrementAndGet();
+            }
+        });
+
+        executor = new CommentTaskExecutor(PARALLELISM, QUEUE_CAPACITY, new CommentTaskExecutor.IdleListener() {
+            @Override
+            public void onIdle(int lastStartId) {
+                // The feeder keeps the executor busy, an idle moment needs no action
+            }
+        });
+    }
+
+    void start() {
+        running = true;
+        feeder.execute(new Runnable() {
+            @Override
+            public void run() {
+                int startId = 0;
+                try {
+                    while (running) {
+                        openStarts.acquire();
+                        final int id = ++startId;
+                        boolean queued = executor.submit(id, new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    runStart(id);
+                                } finally {
+                                    openStarts.release();
+                                }
+                            }
+                        });
+                        if (!queued) {
+                            openStarts.release();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // Stopped
+                }
+            }
+        });
+        if (outageEveryMillis > 0) {
+            outages.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    transport.startOutage(outageMillis);
+                }
+            }, outageEveryMillis, outageEveryMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        outages.shutdownNow();
+        feeder.shutdownNow();
+        executor.shutdown();
+        pipeline.shutdown();
+        feeder.awaitTermination(10, TimeUnit.SECONDS);
+        pipeline.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    long getCommentsPosted() {
+        return transport.getPostCallCount();
+    }
+
+    long getDeadLetters() {
+        return deadLetters.get();
+    }
+
+    long getCompletedTasks() {
+        return taskDao.getCompletedTaskCount();
+    }
+
+    /**
+     * @return Heap the processed videos are expected to take: their in-memory
+     *         table, which is on disk on the device, and the index's Bloom filter.
+     */
+    long getProcessedVideoBytes() {
+        return processedVideos.sizeInBytes() + index.getFilterSizeInBytes();
+    }
+
+    // One start of the service, on a worker of the executor
+    private void runStart(int startId) {
+        CommentTaskManager manager = new CommentTaskManager(taskDao, taskDao, pipeline, filesDir);
+        try {
+            switch (startId % START_KINDS) {
+                case 0:
+                    List<CommentTaskManager.BatchEntry> entries = new ArrayList<>(BATCH_KEYWORDS);
+                    for (int i = 0; i < BATCH_KEYWORDS; i++) {
+                        entries.add(new CommentTaskManager.BatchEntry(nextKeyword(), "soak comment", 1));
+                    }
+                    manager.executeCommentBatch(entries, null);
+                    break;
+                case 1:
+                    manager.configureCommentSettings("soak comment", 1, nextKeyword());
+                    manager.executeCommentTask();
+                    break;
+                default:
+                    StringBuilder jobs = new StringBuilder();
+                    for (int i = 0; i < IMPORTED_JOBS; i++) {
+                        jobs.append("{\"keyword\":\"").append(nextKeyword()).append("\",\"comment\":\"soak comment\"}\n");
+                    }
+                    manager.importTasks(new StringReader(jobs.toString()), JobFileParser.FORMAT_JSON_LINES);
+                    manager.resumePendingTasks();
+                    manager.manageTaskState();
+                    break;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Stopped while queueing, the tasks stay pending
+        }
+    }
+
+    private String nextKeyword() {
+        return "soak" + keywordCounter.incrementAndGet();
+    }
+
+    /**
+     * Prefixes the fake video IDs with the keyword, so every search finds new videos.
+     * The fake only derives its IDs from the keyword's hash, and over hours of
+     * keywords some hashes collide.
+     */
+    private static final class PerKeywordIds implements VideoSearchTransport {
+        private final VideoSearchTransport delegate;
+
+        PerKeywordIds(VideoSearchTransport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public VideoSearchPage fetchPage(String keyword, String filterDate, String cursor) {
+            VideoSearchPage page = delegate.fetchPage(keyword, filterDate, cursor);
+            String[] videoIds = page.getVideoIds();
+            String[] unique = new String[videoIds.length];
+            for (int i = 0; i < videoIds.length; i++) {
+                unique[i] = keyword + "/" + videoIds[i];
+            }
+            return new VideoSearchPage(unique, page.getNextCursor());
+        }
+    }
+
+    /**
+     * Stands in for the processed videos table: hashes are kept sorted in a
+     * plain array, 8 bytes each, and returned in real pages, so every growth of
+     * the index reloads all of them as it does from Room. New hashes collect in
+     * a small buffer that is merged in once full.
+     */
+    private static final class SortedHashStore implements ProcessedVideoIndex.Store {
+        private static final int BUFFER_SIZE = 4096;
+
+        // Guarded by "this"
+        private long[] sorted = new long[BUFFER_SIZE];
+        private int sortedCount;
+        private final long[] buffer = new long[BUFFER_SIZE];
+        private int bufferCount;
+
+        @Override
+        public synchronized boolean contains(long idHash) {
+            if (Arrays.binarySearch(sorted, 0, sortedCount, idHash) >= 0) {
+                return true;
+            }
+            for (int i = 0; i < bufferCount; i++) {
+                if (buffer[i] == idHash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public synchronized void addAll(List<Long> idHashes, long processedAt) {
+            for (long hash : idHashes) {
+                if (!contains(hash)) {
+                    if (bufferCount == BUFFER_SIZE) {
+                        merge();
+                    }
+                    buffer[bufferCount++] = hash;
+                }
+            }
+        }
+
+        @Override
+        public synchronized long[] loadPage(long fromHash, int limit) {
+            merge();
+            int from = Arrays.binarySearch(sorted, 0, sortedCount, fromHash);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            return Arrays.copyOfRange(sorted, from, Math.min(sortedCount, from + limit));
+        }
+
+        @Override
+        public synchronized long count() {
+            return sortedCount + bufferCount;
+        }
+
+        synchronized long sizeInBytes() {
+            return 8L * (sorted.length + buffer.length);
+        }
+
+        // Merges the buffer into the sorted array from the back, in place unless the array is full
+        private void merge() {
+            if (bufferCount == 0) {
+                return;
+            }
+            Arrays.sort(buffer, 0, bufferCount);
+            if (sortedCount + bufferCount > sorted.length) {
+                sorted = Arrays.copyOf(sorted, Math.max(sorted.length * 2, sortedCount + bufferCount));
+            }
+            int i = sortedCount - 1;
+            int j = bufferCount - 1;
+            for (int k = sortedCount + bufferCount - 1; j >= 0; k--) {
+                sorted[k] = i >= 0 && sorted[i] > buffer[j] ? sorted[i--] : buffer[j--];
+            }
+            sortedCount += bufferCount;
+            bufferCount = 0;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.madhub.tiktokcommenttool.soak;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * TrendCheck decides whether a series of soak samples keeps moving the wrong way.
+ * <p>
+ * Warm-up samples are dropped. A series fails only if both hold: its least
+ * squares slope points the wrong way, and the mean of its last third is worse
+ * than the mean of its first third by more than the tolerance. A single spike,
+ * such as an injected outage, moves neither far enough on its own.
+ * </p>
+ */
+final class TrendCheck {
+
+    // Fewer samples than this after the warm-up give no verdict
+    static final int MIN_SAMPLES = 6;
+
+    interface Metric {
+        double valueOf(SoakSample sample);
+    }
+
+    private final String name;
+    private final Metric metric;
+    private final boolean higherIsWorse;
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+
+    /**
+     * @param name Name used in the report.
+     * @param metric Extracts the value from a sample.
+     * @param higherIsWorse true for heap, threads and GC time, false for throughput.
+     * @param absoluteTolerance Allowed worsening in the unit of the metric.
+     * @param relativeTolerance Allowed worsening as a fraction of the first third's mean.
+     */
+    TrendCheck(String name, Metric metric, boolean higherIsWorse, double absoluteTolerance, double relativeTolerance) {
+        this.name = name;
+        this.metric = metric;
+        this.higherIsWorse = higherIsWorse;
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+    }
+
+    /**
+     * @param samples Samples after the warm-up.
+     * @return A description of the failure, or null if the series is fine or too short to judge.
+     */
+    String check(List<SoakSample> samples) {
+        int n = samples.size();
+        if (n < MIN_SAMPLES) {
+            return null;
+        }
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = metric.valueOf(samples.get(i));
+        }
+
+        double slope = slope(samples, values);
+        int third = n / 3;
+        double first = mean(values, 0, third);
+        double last = mean(values, n - third, n);
+        double worsening = higherIsWorse ? last - first : first - last;
+        double tolerance = Math.max(absoluteTolerance, Math.abs(first) * relativeTolerance);
+        boolean slopeWrongWay = higherIsWorse ? slope > 0 : slope < 0;
+
+        if (slopeWrongWay && worsening > tolerance) {
+            return String.format(Locale.US, "%s trends the wrong way: %.2f -> %.2f (tolerance %.2f, slope %.4f/h)",
+                    name, first, last, tolerance, slope * 3600);
+        }
+        return null;
+    }
+
+    /**
+     * @return The checks applied to every soak run.
+     */
+    static List<TrendCheck> defaults() {
+        List<TrendCheck> checks = new ArrayList<>();
+        checks.add(new TrendCheck("heap_mb", new Metric() {
+            @Override
+            public double valueOf(SoakSample sample) {
+                return sample.heapMb;
+            }
+        }, true, 8.0, 0.25));
+        checks.add(new TrendCheck("threads", new Metric() {
+            @Override
+            public double valueOf(SoakSample sample) {
+                return sample.threads;
+            }
+        }, true, 2.0, 0.0));
+        checks.add(new TrendCheck("gc_fraction", new Metric() {
+            @Override
+            public double valueOf(SoakSample sample) {
+                return sample.gcFraction;
+            }
+        }, true, 0.05, 0.0));
+        checks.add(new TrendCheck("comments_per_s", new Metric() {
+            @Override
+            public double valueOf(SoakSample sample) {
+                return sample.commentsPerSecond;
+            }
+        }, false, 1.0, 0.2));
+        return checks;
+    }
+
+    // Least squares slope per second of elapsed time
+    private static double slope(List<SoakSample> samples, double[] values) {
+        int n = values.length;
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanX += samples.get(i).elapsedSeconds;
+            meanY += values[i];
+        }
+        meanX /= n;
+        meanY /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = samples.get(i).elapsedSeconds - meanX;
+            covariance += dx * (values[i] - meanY);
+            variance += dx * dx;
+        }
+        return variance == 0 ? 0 : covariance / variance;
+    }
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return sum / Math.max(1, to - from);
+    }
+}